@@ -6,15 +6,142 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 
 public abstract class AbstractParser {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    static final int DEFAULT_MAX_DEPTH = 1000;
+
     private Reader  reader;
-    private int     la1;
-    private int     line = 1;
-    private int     column = 0;
+    private char[]  block;
+    private char[]  buffer;
+    private int     position;
+    private int     limit;
+    // end of in-memory input, limit is lower if the input exceeds the maximum document length
+    private int     inputLimit;
+    private boolean lengthExceeded;
+    private int     bufferStart;
+    private long    bufferOffset;
+    private boolean lineTracking = true;
+    // line breaks in and offset of the line start after the input that was already dropped from the buffer
+    private int     droppedLines;
+    private long    droppedLineStart;
     private boolean parseBigDecimal;
+    private boolean lazyNumbers;
+    private boolean stringSlices;
+    private SymbolTable symbolTable;
+    private int     maxDepth = DEFAULT_MAX_DEPTH;
+    private long    maxDocumentLength = Long.MAX_VALUE;
+    private int     maxStringLength = Integer.MAX_VALUE;
+    private int     maxNumberLength = Integer.MAX_VALUE;
+    private int     maxElements = Integer.MAX_VALUE;
+    private int     nesting;
+
+    private static final int      MAX_MANTISSA_DIGITS = 19;
+    private static final int      MAX_EXPONENT = 100000;
+    private static final long     MAX_EXACT_MANTISSA = 1L << 53;
+    private static final long     MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    private static final int      MAX_EXACT_FLOAT_EXPONENT = 10;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // scratch state of the last scanned number, the mantissa holds up to 19 digits as an unsigned long
+    private char[]  numberChars = new char[32];
+    private int     numberLength;
+    private long    numberMantissa;
+    private int     numberDigits;
+    private int     numberExponent;
+    private boolean numberNegative;
+    private boolean numberDropped;
+    private boolean numberTruncated;
+    private boolean numberExponentOverflow;
+    private boolean numberIntegral;
 
     public AbstractParser(Reader reader) {
+        this.block    = new char[DEFAULT_BUFFER_SIZE];
+        this.reader   = reader;
+        this.buffer   = block;
+        this.position = 0;
+        this.limit    = 0;
+    }
+
+    /**
+     * Parses directly from the given characters, which are used as the input buffer without copying.
+     */
+    protected AbstractParser(char[] chars, int offset, int length) {
+        this.reader       = null;
+        this.buffer       = chars;
+        this.position     = offset;
+        this.limit        = offset + length;
+        this.inputLimit   = offset + length;
+        this.bufferStart  = offset;
+        this.bufferOffset = -offset;
+    }
+
+    protected AbstractParser(String str) {
+        this(str.toCharArray(), 0, str.length());
+    }
+
+    /**
+     * Called after the input was reset, subclasses have to clear their parsing state here.
+     */
+    protected void resetState() {
+    }
+
+    private void resetPosition() {
+        droppedLines = 0;
+        droppedLineStart = 0;
+        nesting = 0;
+        lengthExceeded = false;
+        limitInput();
+        resetState();
+    }
+
+    /**
+     * Starts parsing new input, keeping configuration, symbol table and scratch buffers of this parser.
+     */
+    public final void reset(Reader reader) {
+        if (block == null) {
+            block = new char[DEFAULT_BUFFER_SIZE];
+        }
         this.reader = reader;
-        this.la1    = -1;
+        this.buffer = block;
+        this.position = 0;
+        this.limit = 0;
+        this.bufferStart = 0;
+        this.bufferOffset = 0;
+        resetPosition();
+    }
+
+    /**
+     * Starts parsing the given characters, which are used as the input buffer without copying.
+     */
+    public final void reset(char[] chars, int offset, int length) {
+        this.reader = null;
+        this.buffer = chars;
+        this.position = offset;
+        this.limit = offset + length;
+        this.inputLimit = offset + length;
+        this.bufferStart = offset;
+        this.bufferOffset = -offset;
+        resetPosition();
+    }
+
+    public final void reset(String str) {
+        int len = str.length();
+        if (block != null && len <= block.length) {
+            str.getChars(0, len, block, 0);
+            reset(block, 0, len);
+        } else {
+            reset(str.toCharArray(), 0, len);
+        }
+    }
+
+    public final void reset(byte[] utf8, int offset, int length) {
+        reset(new UTF8Reader(utf8, offset, length));
+    }
+
+    public final void reset(byte[] utf8) {
+        reset(utf8, 0, utf8.length);
     }
 
     public final boolean isParseBigDecimal() {
@@ -25,62 +152,284 @@ public abstract class AbstractParser {
         this.parseBigDecimal = parseBigDecimal;
     }
 
-    public final int getLine() {
-        return line;
+    public final boolean isLazyNumbers() {
+        return lazyNumbers;
     }
 
-    public final int getColumn() {
-        return column;
+    /**
+     * Enables parsing numbers into {@link JSONNumber} instances that keep the original digits and convert them
+     * on demand. Takes precedence over {@link #setParseBigDecimal(boolean)}.
+     */
+    public final void setLazyNumbers(boolean lazyNumbers) {
+        this.lazyNumbers = lazyNumbers;
     }
 
-    private int readChar() throws IOException {
-        return reader.read();
+    public final boolean isStringSlices() {
+        return stringSlices;
     }
 
-    protected final int nextChar() throws IOException {
-        if (la1 == -1) {
-            int ch = readChar();
-            if (ch == '\n') {
-                line++;
-                column = 0;
+    /**
+     * Enables returning string values of {@link JSONEventParser} as {@link CharSlice} views of the input buffer
+     * instead of copying them into new Strings, see {@link CharSlice} for how long they stay valid. Strings
+     * containing escapes or crossing a block of input are still returned as Strings. Property names are not
+     * affected. Values built by {@link JSONParser} always contain Strings, since they outlive the input buffer;
+     * use {@link JSONParser#parseCharSequence()} to read single strings as slices.
+     */
+    public final void setStringSlices(boolean stringSlices) {
+        this.stringSlices = stringSlices;
+    }
+
+    public final SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Sets a symbol table used to deduplicate property names, or null to create a new String for every name.
+     */
+    public final void setSymbolTable(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public final int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum nesting depth of objects and arrays, which is 1000 by default. This prevents
+     * stack overflows in the recursive parsing methods on deeply nested input.
+     */
+    public final void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public final long getMaxDocumentLength() {
+        return maxDocumentLength;
+    }
+
+    /**
+     * Sets the maximum number of characters of the input, including whitespace, which is unlimited by default.
+     * The setting has to be changed before parsing starts or directly after a reset.
+     */
+    public final void setMaxDocumentLength(long maxDocumentLength) {
+        this.maxDocumentLength = maxDocumentLength;
+        limitInput();
+    }
+
+    public final int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * Sets the maximum length of strings and property names after unescaping, which is unlimited by default.
+     */
+    public final void setMaxStringLength(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+    }
+
+    public final int getMaxNumberLength() {
+        return maxNumberLength;
+    }
+
+    /**
+     * Sets the maximum number of characters of a number, including sign, fraction and exponent,
+     * which is unlimited by default.
+     */
+    public final void setMaxNumberLength(int maxNumberLength) {
+        this.maxNumberLength = maxNumberLength;
+    }
+
+    public final int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Sets the maximum number of elements of an array or properties of an object, which is unlimited by default.
+     */
+    public final void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Lowers the limit of in-memory input so that reading past the maximum document length fails in fill.
+     */
+    private void limitInput() {
+        if (reader == null && buffer != null) {
+            if (bufferOffset + inputLimit > maxDocumentLength) {
+                limit = (int)Math.max(maxDocumentLength - bufferOffset, position);
+                lengthExceeded = true;
             } else {
-                column++;
+                limit = inputLimit;
+                lengthExceeded = false;
             }
-            return ch;
         }
-        else {
-            int ch = la1;
-            la1 = -1;
-            return ch;
+    }
+
+    private JSONSyntaxException createLengthExceededException() {
+        return createSyntaxException("Document exceeds the maximum length of " + maxDocumentLength + " characters");
+    }
+
+    /**
+     * Called when an object or array is opened, fails if the maximum depth is exceeded.
+     */
+    protected final void enterContainer() throws JSONSyntaxException {
+        if (++nesting > maxDepth) {
+            throw createSyntaxException("Nesting exceeds the maximum depth of " + maxDepth);
         }
     }
 
-    protected final int peekChar() throws IOException {
-        if (la1 == -1) {
-            return la1 = readChar();
+    protected final void exitContainer() {
+        nesting--;
+    }
+
+    /**
+     * Fails if the given number of elements of an array or properties of an object exceeds the maximum.
+     */
+    protected final void checkElements(int count) throws JSONSyntaxException {
+        if (count > maxElements) {
+            throw createSyntaxException("Container exceeds the maximum of " + maxElements + " elements");
+        }
+    }
+
+    private JSONSyntaxException createStringTooLongException() {
+        return createSyntaxException("String exceeds the maximum length of " + maxStringLength + " characters");
+    }
+
+    /**
+     * Returns the number of characters consumed since the start of the input.
+     */
+    public final long getOffset() {
+        return bufferOffset + position;
+    }
+
+    public final boolean isLineTracking() {
+        return lineTracking;
+    }
+
+    /**
+     * Enables or disables tracking of line and column numbers, which is enabled by default. Line and column are
+     * computed from the offset on demand, but when reading from a {@link Reader} every block of input has to be
+     * scanned for line breaks before it is dropped from the buffer. Without tracking, error messages only contain
+     * the offset. The setting has to be changed before parsing starts or directly after a reset.
+     */
+    public final void setLineTracking(boolean lineTracking) {
+        this.lineTracking = lineTracking;
+    }
+
+    /**
+     * Returns the current line starting at 1, or -1 if line tracking is disabled.
+     */
+    public final int getLine() {
+        if (!lineTracking) {
+            return -1;
         }
-        else {
-            return la1;
+        int lines = droppedLines;
+        char[] buf = buffer;
+        for (int i = bufferStart; i < position; i++) {
+            if (buf[i] == '\n') {
+                lines++;
+            }
         }
+        return lines + 1;
     }
 
-    protected final int nextToken() throws IOException {
-        int ch;
+    /**
+     * Returns the number of characters consumed in the current line, or -1 if line tracking is disabled.
+     */
+    public final int getColumn() {
+        if (!lineTracking) {
+            return -1;
+        }
+        char[] buf = buffer;
+        for (int i = position - 1; i >= bufferStart; i--) {
+            if (buf[i] == '\n') {
+                return position - i - 1;
+            }
+        }
+        return (int)(getOffset() - droppedLineStart);
+    }
 
+    private void dropBuffer() {
+        char[] buf = buffer;
+        for (int i = bufferStart; i < limit; i++) {
+            if (buf[i] == '\n') {
+                droppedLines++;
+                droppedLineStart = bufferOffset + i + 1;
+            }
+        }
+    }
+
+    /**
+     * Refills the buffer with the next block of input, returns false at end of input.
+     */
+    private boolean fill() throws IOException {
+        if (lengthExceeded) {
+            throw createLengthExceededException();
+        }
+        if (reader == null) {
+            return false;
+        }
+        if (lineTracking) {
+            dropBuffer();
+        }
+        int len;
         do {
-            ch = nextChar();
+            len = reader.read(buffer, 0, buffer.length);
+        } while (len == 0);
+
+        bufferStart = 0;
+        bufferOffset += limit;
+        if (len < 0) {
+            position = limit = 0;
+            return false;
+        } else {
+            long remaining = maxDocumentLength - bufferOffset;
+            if (len > remaining) {
+                // keep the allowed part, the next fill fails
+                lengthExceeded = true;
+                if (remaining <= 0) {
+                    position = limit = 0;
+                    throw createLengthExceededException();
+                }
+                len = (int)remaining;
+            }
+            position = 0;
+            limit = len;
+            return true;
+        }
+    }
+
+    protected final int nextChar() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
         }
-        while (isWhitespace(ch));
+        return buffer[position++];
+    }
+
+    protected final int peekChar() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
 
+    protected final int nextToken() throws IOException {
+        int ch = peekToken();
+        if (ch != -1) {
+            position++;
+        }
         return ch;
     }
 
     protected final int peekToken() throws IOException {
-        if (la1 == -1 || isWhitespace(la1)) {
-            return la1 = nextToken();
-        }
-        else {
-            return la1;
+        while (true) {
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            char ch = buffer[position];
+            if (ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t') {
+                return ch;
+            }
+            position++;
         }
     }
 
@@ -144,130 +493,445 @@ public abstract class AbstractParser {
     }
 
     protected final JSONSyntaxException createSyntaxException(String msg) {
-        return new JSONSyntaxException(msg + " at line " + line + " column " + column);
+        if (lineTracking) {
+            return new JSONSyntaxException(msg + " at line " + getLine() + " column " + getColumn());
+        } else {
+            return new JSONSyntaxException(msg + " at offset " + getOffset());
+        }
+    }
+
+    private void beginNumber() {
+        numberLength = 0;
+        numberMantissa = 0;
+        numberDigits = 0;
+        numberExponent = 0;
+        numberNegative = false;
+        numberDropped = false;
+        numberTruncated = false;
+        numberExponentOverflow = false;
+        numberIntegral = true;
+    }
+
+    private void appendNumberChar(char ch) throws JSONSyntaxException {
+        if (numberLength >= maxNumberLength) {
+            throw createSyntaxException("Number exceeds the maximum length of " + maxNumberLength + " characters");
+        }
+        if (numberLength == numberChars.length) {
+            char[] tmp = new char[numberLength * 2];
+            System.arraycopy(numberChars, 0, tmp, 0, numberLength);
+            numberChars = tmp;
+        }
+        numberChars[numberLength++] = ch;
+    }
+
+    private String numberText() {
+        return new String(numberChars, 0, numberLength);
+    }
+
+    private double numberToDouble() {
+        long mantissa = numberMantissa;
+        int exponent = numberExponent;
+        if (!numberTruncated && mantissa >= 0 && mantissa <= MAX_EXACT_MANTISSA) {
+            // mantissa and power of ten are exact doubles, so a single operation rounds correctly
+            double d = mantissa;
+            if (mantissa == 0 || exponent == 0) {
+                return numberNegative ? -d : d;
+            } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+                d *= POWERS_OF_TEN[exponent];
+                return numberNegative ? -d : d;
+            } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                d /= POWERS_OF_TEN[-exponent];
+                return numberNegative ? -d : d;
+            }
+        }
+        if (!numberExponentOverflow) {
+            double d = FastDoubleConversion.toDouble(mantissa, exponent, numberNegative, numberTruncated);
+            if (!Double.isNaN(d)) {
+                return d;
+            }
+        }
+        return Double.parseDouble(numberText());
+    }
+
+    private float numberToFloat() {
+        long mantissa = numberMantissa;
+        int exponent = numberExponent;
+        if (!numberTruncated && mantissa >= 0 && mantissa <= MAX_EXACT_FLOAT_MANTISSA
+                && exponent >= -MAX_EXACT_FLOAT_EXPONENT && exponent <= MAX_EXACT_FLOAT_EXPONENT) {
+            float f = mantissa;
+            if (exponent > 0) {
+                f *= (float)POWERS_OF_TEN[exponent];
+            } else if (exponent < 0) {
+                f /= (float)POWERS_OF_TEN[-exponent];
+            }
+            return numberNegative ? -f : f;
+        }
+        return Float.parseFloat(numberText());
+    }
+
+    private long numberToLong() {
+        if (numberIntegral && !numberDropped && numberMantissa >= 0) {
+            return numberNegative ? -numberMantissa : numberMantissa;
+        }
+        return numberToBigDecimal().longValueExact();
+    }
+
+    private BigDecimal numberToBigDecimal() {
+        if (!numberDropped && numberMantissa >= 0) {
+            return BigDecimal.valueOf(numberNegative ? -numberMantissa : numberMantissa, -numberExponent);
+        }
+        return new BigDecimal(numberChars, 0, numberLength);
+    }
+
+    private BigInteger numberToBigInteger() {
+        if (numberIntegral && !numberDropped && numberMantissa >= 0) {
+            return BigInteger.valueOf(numberNegative ? -numberMantissa : numberMantissa);
+        }
+        return new BigInteger(numberText(), 10);
     }
 
     protected final BigInteger parseBigInteger(int ch) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        parseNumber(sb, ch);
-        return new BigInteger(sb.toString(), 10);
+        scanNumber(ch);
+        return numberToBigInteger();
     }
-    
-    private Number convertDecimal(StringBuffer sb) {
-        return isParseBigDecimal() ? new BigDecimal(sb.toString()) : Double.valueOf(sb.toString());
+
+    private JSONNumber numberToJSONNumber() {
+        // a leading plus sign is accepted by the parser but not valid JSON, so it is not kept
+        int start = numberLength > 0 && numberChars[0] == '+' ? 1 : 0;
+        String text = new String(numberChars, start, numberLength - start);
+        boolean exact = !numberDropped && !numberExponentOverflow && numberMantissa >= 0;
+        return new JSONNumber(text, numberNegative ? -numberMantissa : numberMantissa, numberExponent, exact, numberIntegral);
+    }
+
+    private Number convertDecimal() {
+        if (lazyNumbers) {
+            return numberToJSONNumber();
+        }
+        return isParseBigDecimal() ? numberToBigDecimal() : Double.valueOf(numberToDouble());
+    }
+
+    protected final JSONNumber parseJSONNumber(int ch) throws IOException {
+        scanNumber(ch);
+        return numberToJSONNumber();
     }
 
     protected final BigDecimal parseBigDecimal(int ch) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        parseNumber(sb, ch);
-        return new BigDecimal(sb.toString());
+        scanNumber(ch);
+        return numberToBigDecimal();
     }
 
     protected final Double parseDouble(int ch) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        parseNumber(sb, ch);
-        return Double.valueOf(sb.toString());
+        scanNumber(ch);
+        return Double.valueOf(numberToDouble());
+    }
+
+    protected final double parseDoubleValue(int ch) throws IOException {
+        scanNumber(ch);
+        return numberToDouble();
+    }
+
+    protected final float parseFloatValue(int ch) throws IOException {
+        scanNumber(ch);
+        return numberToFloat();
+    }
+
+    /**
+     * Parses a number that has to be an exact long value, like {@link BigDecimal#longValueExact()}.
+     */
+    protected final long parseLongValue(int ch) throws IOException, ArithmeticException {
+        scanNumber(ch);
+        return numberToLong();
     }
 
     protected final Number parseUnsignedDecimal(int ch) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        parseUnsignedNumber(sb, ch);
-        return convertDecimal(sb);
+        beginNumber();
+        scanUnsignedNumber(ch);
+        return convertDecimal();
     }
 
     protected final Number parseSignedDecimal(int ch) throws IOException {
-        StringBuffer sb = new StringBuffer();
-        parseNumber(sb, ch);
-        return convertDecimal(sb);
+        scanNumber(ch);
+        return convertDecimal();
     }
 
-    private void parseNumber(StringBuffer sb, int ch) throws IOException {
+    private void scanNumber(int ch) throws IOException {
+        beginNumber();
         if (ch == '-' || ch == '+') {
             nextChar();
-            sb.append((char)ch);
-            int ch2 = peekChar();
-            parseUnsignedNumber(sb, ch2);
-        } else {
-            parseUnsignedNumber(sb, ch);
+            appendNumberChar((char)ch);
+            numberNegative = ch == '-';
+            ch = peekChar();
         }
+        scanUnsignedNumber(ch);
     }
 
-    private void parseUnsignedNumber(StringBuffer sb, int ch) throws IOException {
-        parseInt(sb, ch);
-        int ch2 = peekChar();
-        // optional Fraction
-        if (ch2 == '.') {
-            sb.append('.');
+    private void scanUnsignedNumber(int ch) throws IOException {
+        if (ch == '0') {
             consume();
-            int ch3 = peekChar();
-            parseDigits(sb, ch3);
+            appendNumberChar('0');
+        } else if (ch >= '1' && ch <= '9') {
+            scanDigits(false);
+        } else {
+            throw createSyntaxException(ch, "digit");
+        }
 
-            ch2 = peekChar();
+        ch = peekChar();
+        // optional Fraction
+        if (ch == '.') {
+            consume();
+            appendNumberChar('.');
+            numberIntegral = false;
+            scanDigits(true);
+            ch = peekChar();
         }
 
         // optional exponent
-        if (ch2 == 'e' || ch2 == 'E') {
-            sb.append('e');
+        if (ch == 'e' || ch == 'E') {
             consume();
-            int ch3 = peekChar();
-            if (ch3 == '-' || ch3 == '+') {
+            appendNumberChar((char)ch);
+            numberIntegral = false;
+            ch = peekChar();
+            boolean negativeExponent = false;
+            if (ch == '-' || ch == '+') {
                 consume();
-                sb.append((char)ch3);
-
-                ch3 = peekChar();
+                appendNumberChar((char)ch);
+                negativeExponent = ch == '-';
+                ch = peekChar();
+            }
+            if (ch < '0' || ch > '9') {
+                throw createSyntaxException(ch, "digit");
+            }
+            int exponent = 0;
+            do {
+                consume();
+                appendNumberChar((char)ch);
+                if (exponent < MAX_EXPONENT) {
+                    exponent = exponent * 10 + (ch - '0');
+                }
+                ch = peekChar();
+            } while (ch >= '0' && ch <= '9');
+            if (exponent >= MAX_EXPONENT) {
+                // only the text is exact now
+                numberExponentOverflow = true;
+                numberDropped = true;
+                numberTruncated = true;
             }
-            parseDigits(sb, ch3);
+            numberExponent += negativeExponent ? -exponent : exponent;
         }
     }
 
-    private void parseInt(StringBuffer sb, int ch) throws IOException {
-        if (ch == '0') {
-            consume('0');
-            sb.append('0');
-        }
-        else if (ch >= '1' && ch <= '9') {
-            parseDigits(sb, ch);
+    /**
+     * Accumulates up to 19 significant digits into the mantissa, digits beyond that are only kept as text.
+     */
+    private void scanDigits(boolean fraction) throws IOException {
+        while (position < limit || fill()) {
+            char ch = buffer[position];
+            if (ch < '0' || ch > '9') {
+                break;
+            }
+            position++;
+            appendNumberChar(ch);
+            if (numberDigits < MAX_MANTISSA_DIGITS) {
+                numberMantissa = numberMantissa * 10 + (ch - '0');
+                if (numberMantissa != 0) {
+                    numberDigits++;
+                }
+                if (fraction) {
+                    numberExponent--;
+                }
+            } else {
+                numberDropped = true;
+                if (ch != '0') {
+                    numberTruncated = true;
+                }
+                if (!fraction) {
+                    numberExponent++;
+                }
+            }
         }
-        else {
-            throw createSyntaxException(ch, "digit");
+    }
+
+    private static boolean isStringRunChar(char ch) {
+        // Character.isISOControl
+        return ch >= 0x20 && (ch < 0x7F || ch > 0x9F);
+    }
+
+    /**
+     * Scans runs of unescaped characters directly in the input buffer. If the string contains no escapes
+     * and does not cross a block boundary it is created from the buffer without an intermediate copy.
+     */
+    protected final String parseStringImpl(int quote) throws IOException {
+        return parseStringImpl(quote, null);
+    }
+
+    /**
+     * Parses a property name, which is canonicalized if a symbol table is configured.
+     */
+    protected final String parsePropertyName(int quote) throws IOException {
+        return parseStringImpl(quote, symbolTable);
+    }
+
+    private String parseStringImpl(int quote, SymbolTable symbols) throws IOException {
+        consume(quote);
+        return parseStringContent(quote, symbols);
+    }
+
+    private String parseStringContent(int quote, SymbolTable symbols) throws IOException {
+        StringBuilder sb = null;
+        while (true) {
+            if (position >= limit && !fill()) {
+                throw createSyntaxException(-1, "non-control character");
+            }
+            char[] buf = buffer;
+            int start = position;
+            int end = limit;
+            int i = start;
+            char ch = 0;
+            while (i < end) {
+                ch = buf[i];
+                if (ch == quote || ch == '\\' || !isStringRunChar(ch)) {
+                    break;
+                }
+                i++;
+            }
+            position = i;
+            if ((sb == null ? 0 : sb.length()) + i - start > maxStringLength) {
+                throw createStringTooLongException();
+            }
+            if (i == end) {
+                if (sb == null) {
+                    sb = new StringBuilder(i - start + 16);
+                }
+                sb.append(buf, start, i - start);
+            } else if (ch == quote) {
+                position++;
+                if (sb == null) {
+                    return symbols == null ? new String(buf, start, i - start) : symbols.lookup(buf, start, i - start);
+                } else {
+                    sb.append(buf, start, i - start);
+                    return symbols == null ? sb.toString() : symbols.lookup(sb.toString());
+                }
+            } else if (ch == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder(i - start + 16);
+                }
+                sb.append(buf, start, i - start);
+                if (sb.length() >= maxStringLength) {
+                    throw createStringTooLongException();
+                }
+                sb.append((char)parseEscape());
+            } else {
+                throw createSyntaxException(ch, "non-control character");
+            }
         }
     }
 
-    private void parseDigits(StringBuffer sb, int ch) throws IOException {
-        if (ch >= '0' && ch <= '9') {
-            consume();
-            sb.append((char)ch);
-            while (true) {
-                int ch2 = peekChar();
-                if (ch2 >= '0' && ch2 <= '9') {
-                    consume();
-                    sb.append((char)ch2);
+    /**
+     * Parses a string and returns a {@link CharSlice} of the input buffer if the string contains no escapes
+     * and lies within the current block of input, otherwise a new String.
+     */
+    protected final CharSequence parseStringSlice(int quote) throws IOException {
+        consume(quote);
+        char[] buf = buffer;
+        int start = position;
+        for (int i = start, end = limit; i < end; i++) {
+            char ch = buf[i];
+            if (ch == quote) {
+                if (i - start > maxStringLength) {
+                    break;
                 }
-                else {
+                position = i + 1;
+                return new CharSlice(buf, start, i - start);
+            } else if (ch == '\\' || !isStringRunChar(ch)) {
+                break;
+            }
+        }
+        return parseStringContent(quote, null);
+    }
+
+    /**
+     * Returns the characters up to the next delimiter, line break or the end of input, copying runs
+     * from the input buffer in bulk.
+     */
+    protected final String parseUntilDelimiterOrNewline(char delimiter) throws IOException {
+        StringBuilder sb = null;
+        while (position < limit || fill()) {
+            char[] buf = buffer;
+            int start = position;
+            int end = limit;
+            int i = start;
+            while (i < end) {
+                char ch = buf[i];
+                if (ch == delimiter || ch == '\n' || ch == '\r') {
                     break;
                 }
+                i++;
             }
+            position = i;
+            if (i < end) {
+                if (sb == null) {
+                    return new String(buf, start, i - start);
+                } else {
+                    sb.append(buf, start, i - start);
+                    return sb.toString();
+                }
+            }
+            if (sb == null) {
+                sb = new StringBuilder(i - start + 16);
+            }
+            sb.append(buf, start, i - start);
         }
+        return sb == null ? "" : sb.toString();
     }
 
-    protected final String parseStringImpl(int quote) throws IOException {
+    /**
+     * Validates and skips a string without creating it.
+     */
+    protected final void skipStringImpl(int quote) throws IOException {
         consume(quote);
-        StringBuilder sb = new StringBuilder();
+        long length = 0;
         while (true) {
-            int ch = peekChar();
-            if (ch == '\\') {
-                sb.append((char)parseEscape());
+            if (position >= limit && !fill()) {
+                throw createSyntaxException(-1, "non-control character");
+            }
+            char[] buf = buffer;
+            int start = position;
+            int end = limit;
+            int i = start;
+            char ch = 0;
+            while (i < end) {
+                ch = buf[i];
+                if (ch == quote || ch == '\\' || !isStringRunChar(ch)) {
+                    break;
+                }
+                i++;
+            }
+            position = i;
+            length += i - start;
+            if (length > maxStringLength) {
+                throw createStringTooLongException();
+            }
+            if (i == end) {
+                continue;
             } else if (ch == quote) {
-                break;
-            } else if (ch == -1 || Character.isISOControl(ch)) {
-                throw createSyntaxException(ch, "non-control character");
+                position++;
+                return;
+            } else if (ch == '\\') {
+                if (++length > maxStringLength) {
+                    throw createStringTooLongException();
+                }
+                parseEscape();
             } else {
-                sb.append((char)ch);
-                consume();
+                throw createSyntaxException(ch, "non-control character");
             }
         }
-        consume(quote);
-        return sb.toString();
+    }
+
+    /**
+     * Validates and skips a number without converting it.
+     */
+    protected final void skipNumber(int ch) throws IOException {
+        scanNumber(ch);
     }
 
     private int parseEscape() throws IOException {
@@ -316,7 +980,7 @@ public abstract class AbstractParser {
         if (ch == '"' || ch == '\'') {
             return parseStringImpl(ch);
         } else {
-            throw new JSONSyntaxException("Illegal start of string at line " + getLine() + " column " + getColumn() + "!");
+            throw createSyntaxException("Illegal start of string");
         }
     }
 }
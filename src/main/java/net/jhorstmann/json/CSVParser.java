@@ -2,7 +2,7 @@ package net.jhorstmann.json;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.channels.FileChannel;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -26,12 +26,26 @@ public class CSVParser extends AbstractParser {
         this(reader, DEFAULT_DELIMITER, false);
     }
 
+    /**
+     * Parses UTF-8 encoded content of the channel starting at its current position, using memory mapped windows of the file.
+     * The channel is not closed by the parser.
+     */
+    public CSVParser(FileChannel channel, char delimiter, boolean parseNumbers) {
+        this(new MappedFileReader(channel), delimiter, parseNumbers);
+    }
+
+    public CSVParser(FileChannel channel) {
+        this(channel, DEFAULT_DELIMITER, false);
+    }
+
     public CSVParser(String str) {
-        this(new StringReader(str));
+        this(str, DEFAULT_DELIMITER, false);
     }
 
     public CSVParser(String str, char delimiter, boolean parseNumbers) {
-        this(new StringReader(str), delimiter, parseNumbers);
+        super(str);
+        this.delimiter = delimiter;
+        this.parseNumbers = parseNumbers;
     }
 
     public char getDelimiter() {
@@ -50,22 +64,8 @@ public class CSVParser extends AbstractParser {
         this.parseNumbers = parseNumbers;
     }
 
-    private String parseBareString(int ch) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        while (true) {
-            if (ch == -1) {
-                break;
-            } else if (ch == delimiter) {
-                break;
-            } else if (ch == '\r' || ch == '\n') {
-                break;
-            } else {
-                nextChar();
-                sb.append((char) ch);
-                ch = peekChar();
-            }
-        }
-        return sb.toString();
+    private String parseBareString() throws IOException {
+        return parseUntilDelimiterOrNewline(delimiter);
     }
 
     private String parseString(int quote) throws IOException {
@@ -111,7 +111,7 @@ public class CSVParser extends AbstractParser {
             int ch2 = peekChar();
             skipOptionalWhitespace(ch2);
         } else {
-            String str = parseBareString(ch).trim();
+            String str = parseBareString().trim();
             res = str.length() == 0 ? null : str;
         }
         return res;
@@ -172,6 +172,7 @@ public class CSVParser extends AbstractParser {
 
         private List<JSONObject> list;
         private String[] properties;
+        private JSONShape shapes = new JSONShape();
 
         LineCollector(List<JSONObject> list, String[] properties) {
             if (list == null) {
@@ -185,11 +186,11 @@ public class CSVParser extends AbstractParser {
         }
 
         public void line(List<T> fields) {
-            JSONObject json = new JSONObject();
+            JSONObject json = new JSONObject(shapes, properties.length);
             int i = 0;
             for (T value : fields) {
                 String property = properties[i];
-                json.put(property, value);
+                json.putShaped(property, value);
                 i++;
                 if (i >= properties.length) {
                     break;
@@ -0,0 +1,76 @@
+package net.jhorstmann.json;
+
+/**
+ * Read-only view of a range of characters in the input buffer of a parser, returned instead of a String
+ * when string slices are enabled.
+ * <p>
+ * A slice stays valid as long as the underlying characters are not modified, which for parsers reading from a
+ * {@link java.io.Reader} is only until the parser reads the next block of input or is reset, and for parsers over
+ * a String or char array until the parser is reset. Use {@link #toString()} to retain the value.
+ */
+public final class CharSlice implements CharSequence {
+    private final char[] chars;
+    private final int    offset;
+    private final int    length;
+
+    CharSlice(char[] chars, int offset, int length) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        }
+        return chars[offset + index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + length);
+        }
+        return new CharSlice(chars, offset + start, end - start);
+    }
+
+    /**
+     * Compares the characters of this slice with the given sequence without copying them.
+     */
+    public boolean contentEquals(CharSequence cs) {
+        if (cs.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != cs.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CharSlice && contentEquals((CharSlice)obj);
+    }
+
+    /**
+     * Returns the same hash code as the equivalent String.
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+}
@@ -0,0 +1,136 @@
+package net.jhorstmann.json;
+
+import java.math.BigInteger;
+
+/**
+ * Decimal to double conversion using the algorithm by Eisel and Lemire, see
+ * "Number Parsing at a Gigabyte per Second" (Lemire, 2021) and the fast_float library.
+ * Results are correctly rounded and therefore bit-identical to {@link Double#parseDouble(String)}.
+ */
+class FastDoubleConversion {
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+    private static final int MANTISSA_EXPLICIT_BITS = 52;
+    private static final int MINIMUM_EXPONENT = -1023;
+    private static final int INFINITE_POWER = 0x7FF;
+    private static final int MIN_EXPONENT_ROUND_TO_EVEN = -4;
+    private static final int MAX_EXPONENT_ROUND_TO_EVEN = 23;
+    private static final long PRECISION_MASK = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_EXPLICIT_BITS + 3);
+
+    // 128 bit approximations of the powers of five from 5^-342 to 5^308, normalized so that the highest bit is set
+    private static final long[] POWERS_OF_FIVE_HIGH = new long[LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1];
+    private static final long[] POWERS_OF_FIVE_LOW = new long[LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1];
+
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+            BigInteger c;
+            if (q < 0) {
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+            } else {
+                c = five.pow(q);
+            }
+            c = c.bitLength() > 128 ? c.shiftRight(c.bitLength() - 128) : c.shiftLeft(128 - c.bitLength());
+            POWERS_OF_FIVE_HIGH[q - SMALLEST_POWER_OF_TEN] = c.shiftRight(64).longValue();
+            POWERS_OF_FIVE_LOW[q - SMALLEST_POWER_OF_TEN] = c.longValue();
+        }
+    }
+
+    private FastDoubleConversion() {
+    }
+
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long cross = ((x0 * y0) >>> 32) + ((x1 * y0) & 0xFFFFFFFFL) + x0 * y1;
+        return ((x1 * y0) >>> 32) + (cross >>> 32) + x1 * y1;
+    }
+
+    private static boolean lessThanUnsigned(long a, long b) {
+        return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns the bits of the positive double nearest to {@code w * 10^q}, where w is interpreted as an unsigned long.
+     */
+    private static long computeFloat(int q, long w) {
+        if (w == 0 || q < SMALLEST_POWER_OF_TEN) {
+            return 0L;
+        }
+        if (q > LARGEST_POWER_OF_TEN) {
+            return (long)INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+        }
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        int index = q - SMALLEST_POWER_OF_TEN;
+        long high = multiplyHigh(w, POWERS_OF_FIVE_HIGH[index]);
+        long low = w * POWERS_OF_FIVE_HIGH[index];
+        if ((high & PRECISION_MASK) == PRECISION_MASK) {
+            long secondHigh = multiplyHigh(w, POWERS_OF_FIVE_LOW[index]);
+            low += secondHigh;
+            if (lessThanUnsigned(low, secondHigh)) {
+                high++;
+            }
+        }
+
+        int upperbit = (int)(high >>> 63);
+        int shift = upperbit + 64 - MANTISSA_EXPLICIT_BITS - 3;
+        long mantissa = high >>> shift;
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperbit - lz - MINIMUM_EXPONENT;
+
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64) {
+                return 0L;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_EXPLICIT_BITS) ? 0 : 1;
+            return mantissa | ((long)power2 << MANTISSA_EXPLICIT_BITS);
+        }
+
+        if (low + Long.MIN_VALUE <= 1 + Long.MIN_VALUE && q >= MIN_EXPONENT_ROUND_TO_EVEN && q <= MAX_EXPONENT_ROUND_TO_EVEN
+                && (mantissa & 3) == 1) {
+            // exactly halfway between two doubles, round to even
+            if ((mantissa << shift) == high) {
+                mantissa &= ~1L;
+            }
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_EXPLICIT_BITS)) {
+            mantissa = 1L << MANTISSA_EXPLICIT_BITS;
+            power2++;
+        }
+        mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+        if (power2 >= INFINITE_POWER) {
+            return (long)INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+        }
+        return mantissa | ((long)power2 << MANTISSA_EXPLICIT_BITS);
+    }
+
+    /**
+     * Converts the decimal {@code mantissa * 10^exponent} to a double. If {@code truncated} is set, nonzero digits
+     * were dropped from the mantissa and the result is only returned if it is the same for {@code mantissa + 1}.
+     * Returns NaN if the result could not be determined, callers then have to fall back to {@link Double#parseDouble(String)}.
+     */
+    static double toDouble(long mantissa, int exponent, boolean negative, boolean truncated) {
+        long bits = computeFloat(exponent, mantissa);
+        if (truncated && bits != computeFloat(exponent, mantissa + 1)) {
+            return Double.NaN;
+        }
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -1,15 +1,334 @@
 package net.jhorstmann.json;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.ListIterator;
+import java.util.RandomAccess;
 
-public class JSONArray extends ArrayList {
+/**
+ * List of the elements of a JSON array.
+ * <p>
+ * Arrays whose elements are all doubles, longs or booleans store them in a primitive array and only box them when
+ * they are accessed as objects. The primitive storage is chosen by the first element added with
+ * {@link #addDouble(double)}, {@link #addLong(long)} or {@link #addBoolean(boolean)}, which the parser does for
+ * numbers and booleans, and is converted to an object array as soon as an element of a different type is added.
+ */
+public class JSONArray extends AbstractList implements RandomAccess, Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int OBJECT = 0;
+    private static final int DOUBLE = 1;
+    private static final int LONG = 2;
+    private static final int BOOLEAN = 3;
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final Object[] EMPTY = new Object[0];
+
+    private int       kind;
+    private Object[]  objects;
+    private double[]  doubles;
+    private long[]    longs;
+    private boolean[] booleans;
+    private int       size;
+
+    public JSONArray() {
+        this.objects = EMPTY;
+    }
+
+    public JSONArray(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.objects = new Object[initialCapacity];
+    }
+
+    public JSONArray(Collection c) {
+        this(c.size());
+        addAll(c);
+    }
+
+    int modCount() {
+        return modCount;
+    }
+
+    private int capacity() {
+        switch (kind) {
+            case DOUBLE:  return doubles.length;
+            case LONG:    return longs.length;
+            case BOOLEAN: return booleans.length;
+            default:      return objects.length;
+        }
+    }
+
+    private Object storage() {
+        switch (kind) {
+            case DOUBLE:  return doubles;
+            case LONG:    return longs;
+            case BOOLEAN: return booleans;
+            default:      return objects;
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        int capacity = capacity();
+        if (minCapacity <= capacity) {
+            return;
+        }
+        capacity = Math.max(minCapacity, Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1)));
+        switch (kind) {
+            case DOUBLE: {
+                double[] tmp = new double[capacity];
+                System.arraycopy(doubles, 0, tmp, 0, size);
+                doubles = tmp;
+                break;
+            }
+            case LONG: {
+                long[] tmp = new long[capacity];
+                System.arraycopy(longs, 0, tmp, 0, size);
+                longs = tmp;
+                break;
+            }
+            case BOOLEAN: {
+                boolean[] tmp = new boolean[capacity];
+                System.arraycopy(booleans, 0, tmp, 0, size);
+                booleans = tmp;
+                break;
+            }
+            default: {
+                Object[] tmp = new Object[capacity];
+                System.arraycopy(objects, 0, tmp, 0, size);
+                objects = tmp;
+                break;
+            }
+        }
+    }
+
+    private boolean fits(Object o) {
+        switch (kind) {
+            case DOUBLE:  return o instanceof Double;
+            case LONG:    return o instanceof Long;
+            case BOOLEAN: return o instanceof Boolean;
+            default:      return true;
+        }
+    }
+
+    private void store(int index, Object o) {
+        switch (kind) {
+            case DOUBLE:
+                doubles[index] = ((Double)o).doubleValue();
+                break;
+            case LONG:
+                longs[index] = ((Long)o).longValue();
+                break;
+            case BOOLEAN:
+                booleans[index] = ((Boolean)o).booleanValue();
+                break;
+            default:
+                objects[index] = o;
+                break;
+        }
+    }
+
+    /**
+     * Converts primitive storage into an object array.
+     */
+    private void generalize() {
+        Object[] tmp = new Object[Math.max(capacity(), DEFAULT_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            tmp[i] = get(i);
+        }
+        objects = tmp;
+        doubles = null;
+        longs = null;
+        booleans = null;
+        kind = OBJECT;
+    }
+
+    /**
+     * Switches an empty array to the given primitive storage.
+     */
+    private void specialize(int kind) {
+        int capacity = Math.max(capacity(), DEFAULT_CAPACITY);
+        objects = null;
+        doubles = null;
+        longs = null;
+        booleans = null;
+        this.kind = kind;
+        switch (kind) {
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case LONG:
+                longs = new long[capacity];
+                break;
+            default:
+                booleans = new boolean[capacity];
+                break;
+        }
+    }
+
+    private void rangeCheck(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int index) {
+        rangeCheck(index);
+        switch (kind) {
+            case DOUBLE:  return Double.valueOf(doubles[index]);
+            case LONG:    return Long.valueOf(longs[index]);
+            case BOOLEAN: return Boolean.valueOf(booleans[index]);
+            default:      return objects[index];
+        }
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        Object old = get(index);
+        if (!fits(element)) {
+            generalize();
+        }
+        store(index, element);
+        return old;
+    }
+
+    @Override
+    public boolean add(Object element) {
+        if (!fits(element)) {
+            generalize();
+        }
+        ensureCapacity(size + 1);
+        store(size++, element);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (!fits(element)) {
+            generalize();
+        }
+        ensureCapacity(size + 1);
+        Object storage = storage();
+        System.arraycopy(storage, index, storage, index + 1, size - index);
+        store(index, element);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object old = get(index);
+        Object storage = storage();
+        System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+        size--;
+        if (kind == OBJECT) {
+            objects[size] = null;
+        }
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (kind == OBJECT) {
+            for (int i = 0; i < size; i++) {
+                objects[i] = null;
+            }
+        }
+        size = 0;
+        modCount++;
+    }
+
+    public void addDouble(double value) {
+        if (kind != DOUBLE) {
+            if (size > 0) {
+                add(Double.valueOf(value));
+                return;
+            }
+            specialize(DOUBLE);
+        }
+        ensureCapacity(size + 1);
+        doubles[size++] = value;
+        modCount++;
+    }
+
+    public void addLong(long value) {
+        if (kind != LONG) {
+            if (size > 0) {
+                add(Long.valueOf(value));
+                return;
+            }
+            specialize(LONG);
+        }
+        ensureCapacity(size + 1);
+        longs[size++] = value;
+        modCount++;
+    }
+
+    public void addBoolean(boolean value) {
+        if (kind != BOOLEAN) {
+            if (size > 0) {
+                add(Boolean.valueOf(value));
+                return;
+            }
+            specialize(BOOLEAN);
+        }
+        ensureCapacity(size + 1);
+        booleans[size++] = value;
+        modCount++;
+    }
+
+    public double getDouble(int index) {
+        rangeCheck(index);
+        switch (kind) {
+            case DOUBLE: return doubles[index];
+            case LONG:   return longs[index];
+            default:     return JSONConversion.convertDouble(get(index));
+        }
+    }
+
+    public long getLong(int index) {
+        rangeCheck(index);
+        switch (kind) {
+            case DOUBLE: return (long)doubles[index];
+            case LONG:   return longs[index];
+            default:     return JSONConversion.convertLong(get(index));
+        }
+    }
+
+    public int getInt(int index) {
+        rangeCheck(index);
+        switch (kind) {
+            case DOUBLE: return (int)doubles[index];
+            case LONG:   return (int)longs[index];
+            default:     return JSONConversion.convertInt(get(index));
+        }
+    }
+
+    public boolean getBoolean(int index) {
+        rangeCheck(index);
+        return kind == BOOLEAN ? booleans[index] : JSONConversion.convertBoolean(get(index));
+    }
 
     @Override
     public Iterator iterator() {
-        return new JSONIterator(super.iterator());
+        return new JSONIterator(this);
+    }
+
+    public JSONIterator jsonIterator() {
+        return new JSONIterator(this);
     }
 
     @Override
@@ -26,6 +345,21 @@ public class JSONArray extends ArrayList {
         return new JSONListIterator(super.listIterator());
     }
 
+    @Override
+    public JSONArray clone() {
+        try {
+            JSONArray result = (JSONArray)super.clone();
+            result.objects = objects == null ? null : objects.clone();
+            result.doubles = doubles == null ? null : doubles.clone();
+            result.longs = longs == null ? null : longs.clone();
+            result.booleans = booleans == null ? null : booleans.clone();
+            result.modCount = 0;
+            return result;
+        } catch (CloneNotSupportedException ex) {
+            throw new InternalError();
+        }
+    }
+
     @Override
     public String toString() {
         return toString(false);
@@ -52,6 +52,8 @@ class JSONConversion {
             return BigDecimal.ZERO;
         } else if (o instanceof BigDecimal) {
             return (BigDecimal) o;
+        } else if (o instanceof JSONNumber) {
+            return ((JSONNumber) o).bigDecimalValue();
         } else if (o instanceof Number) {
             return new BigDecimal(o.toString());
         } else if (o instanceof String) {
@@ -0,0 +1,171 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import net.jhorstmann.json.JSONParser.ValueType;
+
+/**
+ * Iterates over the elements of an array while it is parsed, so that arrays larger than memory can be processed
+ * one element at a time.
+ * <p>
+ * The array is either the top-level value of the document or addressed by a path in the same syntax as
+ * {@link JSONSelector}, without wildcards. Values before the array are skipped, values after it are not read.
+ * An iterator that is not positioned at an existing array yields no elements. Each element is materialized with
+ * {@link JSONParser#parseValue()}, so the settings of the parser apply. The {@link Iterator} methods rethrow
+ * parse errors wrapped in an {@link IllegalStateException}, the equivalent methods {@link #nextType()},
+ * {@link #nextValue()} and {@link #skip()} report them directly.
+ */
+public class JSONElementIterator implements Iterator<Object>, Iterable<Object> {
+    private static final int START = 0;
+    private static final int BEFORE_ELEMENT = 1;
+    private static final int AFTER_ELEMENT = 2;
+    private static final int END = 3;
+
+    private final JSONParser parser;
+    private final List<String> path;
+    private int state = START;
+    private int index;
+    private boolean iterated;
+
+    /**
+     * Iterates over the elements of the top-level array of the document.
+     */
+    public JSONElementIterator(JSONParser parser) {
+        this.parser = parser;
+        this.path = Collections.emptyList();
+    }
+
+    /**
+     * Iterates over the elements of the array at the given path, like {@code /data/items} or {@code data.items}.
+     */
+    public JSONElementIterator(JSONParser parser, String path) {
+        this.parser = parser;
+        this.path = JSONSelector.parsePath(path);
+        if (this.path.contains("*")) {
+            throw new IllegalArgumentException("Wildcards are not supported in path " + path);
+        }
+    }
+
+    /**
+     * Returns the index of the next element, which is the number of elements consumed so far.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    private void start() throws IOException {
+        if (path.isEmpty()) {
+            int ch = parser.peekToken();
+            if (ch != '[') {
+                throw parser.createSyntaxException(ch, '[');
+            }
+        } else if (!parser.seek(path)) {
+            state = END;
+            return;
+        } else if (parser.peekToken() != '[') {
+            leavePath();
+            state = END;
+            return;
+        }
+        parser.consume();
+        parser.enterContainer();
+        state = parser.peekToken() == ']' ? AFTER_ELEMENT : BEFORE_ELEMENT;
+    }
+
+    /**
+     * Leaves the containers entered by {@link JSONParser#seek}, so that the nesting depth of the parser is
+     * restored once the addressed array has been read.
+     */
+    private void leavePath() {
+        for (int i = 0; i < path.size(); i++) {
+            parser.exitContainer();
+        }
+    }
+
+    /**
+     * Returns the type of the next element, or null after the last one.
+     */
+    public ValueType nextType() throws IOException {
+        if (state == START) {
+            start();
+        }
+        if (state == AFTER_ELEMENT) {
+            int ch = parser.peekToken();
+            if (ch == ']') {
+                parser.consume();
+                parser.exitContainer();
+                leavePath();
+                state = END;
+                if (path.isEmpty() && (ch = parser.peekToken()) != -1) {
+                    throw parser.createSyntaxException(ch, -1);
+                }
+            } else if (ch == ',' && index > 0) {
+                parser.consume();
+                parser.checkElements(index + 1);
+                state = BEFORE_ELEMENT;
+            } else {
+                throw parser.createSyntaxException(ch, "closing bracket or comma");
+            }
+        }
+        return state == BEFORE_ELEMENT ? parser.nextItemType(parser.peekToken()) : null;
+    }
+
+    /**
+     * Parses and returns the next element.
+     */
+    public Object nextValue() throws IOException {
+        if (nextType() == null) {
+            throw new NoSuchElementException();
+        }
+        Object value = parser.parseValue();
+        state = AFTER_ELEMENT;
+        index++;
+        return value;
+    }
+
+    /**
+     * Skips the next element without building it.
+     */
+    public void skip() throws IOException {
+        if (nextType() == null) {
+            throw new NoSuchElementException();
+        }
+        parser.skipValue();
+        state = AFTER_ELEMENT;
+        index++;
+    }
+
+    public boolean hasNext() {
+        try {
+            return nextType() != null;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading the next element failed", ex);
+        }
+    }
+
+    public Object next() {
+        try {
+            return nextValue();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading the next element failed", ex);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns this iterator, so that it can be used in a for-each loop once.
+     */
+    public Iterator<Object> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Elements can only be iterated once");
+        }
+        iterated = true;
+        return this;
+    }
+}
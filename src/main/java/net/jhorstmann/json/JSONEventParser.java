@@ -2,9 +2,8 @@ package net.jhorstmann.json;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
 public class JSONEventParser extends AbstractParser implements Iterator<JSONEventParser.EventType> {
@@ -23,23 +22,97 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
 
         FIRST_ITEM, FIRST_PROPERTY, EXPECT_VALUE, EXPECT_PROPERTY, EXPECT_COLON, EXPECT_COMMA_OR_END;
     }
-    private LinkedList<ContainerType> stack = new LinkedList<ContainerType>();
+    private ContainerType[] stack = new ContainerType[16];
+    // number of commas in each open container
+    private int[] separators = new int[16];
+    private int depth;
     private ParserState state = ParserState.EXPECT_VALUE;
-    private Double currentNumber;
-    private String currentString;
+    private EventType currentEvent;
+    private Number currentNumber;
+    private CharSequence currentString;
+    private boolean skipping;
+    private boolean multipleDocuments;
 
     public JSONEventParser(Reader reader) {
         super(reader);
     }
 
+    /**
+     * Parses UTF-8 encoded content of the channel starting at its current position, using memory mapped windows of the file.
+     * The channel is not closed by the parser.
+     */
+    public JSONEventParser(FileChannel channel) {
+        this(new MappedFileReader(channel));
+    }
+
     public JSONEventParser(String json) {
-        this(new StringReader(json));
+        super(json);
+    }
+
+    public boolean isMultipleDocuments() {
+        return multipleDocuments;
+    }
+
+    /**
+     * Sets whether the input may contain several concatenated top-level values, which follow each other directly
+     * or separated by whitespace. Each document ends with the event that returns the depth to zero.
+     */
+    public void setMultipleDocuments(boolean multipleDocuments) {
+        this.multipleDocuments = multipleDocuments;
+    }
+
+    /**
+     * Returns the number of objects and arrays that are currently open.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    protected void resetState() {
+        depth = 0;
+        state = ParserState.EXPECT_VALUE;
+        currentEvent = null;
+        currentNumber = null;
+        currentString = null;
+    }
+
+    private void push(ContainerType type) throws JSONSyntaxException {
+        enterContainer();
+        if (depth == stack.length) {
+            ContainerType[] tmp = new ContainerType[depth * 2];
+            System.arraycopy(stack, 0, tmp, 0, depth);
+            stack = tmp;
+            int[] tmp2 = new int[depth * 2];
+            System.arraycopy(separators, 0, tmp2, 0, depth);
+            separators = tmp2;
+        }
+        separators[depth] = 0;
+        stack[depth++] = type;
+    }
+
+    private boolean pop(ContainerType type) {
+        if (depth > 0 && stack[depth - 1] == type) {
+            depth--;
+            exitContainer();
+            return true;
+        } else {
+            return false;
+        }
     }
 
     public EventType nextEvent() throws IOException {
         currentNumber = null;
         currentString = null;
+        return currentEvent = readEvent();
+    }
+
+    private EventType readEvent() throws IOException {
         int ch = peekToken();
+        if (multipleDocuments && depth == 0 && state == ParserState.EXPECT_COMMA_OR_END) {
+            // the previous document is complete
+            state = ParserState.EXPECT_VALUE;
+        }
         switch (ch) {
             case 'n':
                 if (state == ParserState.FIRST_ITEM || state == ParserState.EXPECT_VALUE) {
@@ -77,7 +150,11 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
             case '9':
             case '-':
                 if (state == ParserState.FIRST_ITEM || state == ParserState.EXPECT_VALUE) {
-                    currentNumber = parseDouble(ch);
+                    if (skipping) {
+                        skipNumber(ch);
+                    } else {
+                        currentNumber = isLazyNumbers() ? parseJSONNumber(ch) : parseDouble(ch);
+                    }
                     state = ParserState.EXPECT_COMMA_OR_END;
                     return EventType.VALUE_NUMBER;
                 } else {
@@ -85,11 +162,19 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
                 }
             case '"':
                 if (state == ParserState.FIRST_PROPERTY || state == ParserState.EXPECT_PROPERTY) {
-                    currentString = parseStringImpl(ch);
+                    if (skipping) {
+                        skipStringImpl(ch);
+                    } else {
+                        currentString = parsePropertyName(ch);
+                    }
                     state = ParserState.EXPECT_COLON;
                     return EventType.PROPERTY;
                 } else if (state == ParserState.FIRST_ITEM || state == ParserState.EXPECT_VALUE) {
-                    currentString = parseStringImpl(ch);
+                    if (skipping) {
+                        skipStringImpl(ch);
+                    } else {
+                        currentString = isStringSlices() ? parseStringSlice(ch) : parseStringImpl(ch);
+                    }
                     state = ParserState.EXPECT_COMMA_OR_END;
                     return EventType.VALUE_STRING;
                 } else {
@@ -101,40 +186,43 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
                 }
                 consume();
                 state = ParserState.EXPECT_VALUE;
-                return nextEvent();
+                return readEvent();
             case ',':
-                if (stack.isEmpty() || state != ParserState.EXPECT_COMMA_OR_END) {
+                if (depth == 0 || state != ParserState.EXPECT_COMMA_OR_END) {
                     throw createSyntaxException(ch);
                 }
                 consume();
-                state = stack.getFirst() == ContainerType.OBJECT ? ParserState.EXPECT_PROPERTY : ParserState.EXPECT_VALUE;
-                return nextEvent();
+                checkElements(++separators[depth - 1] + 1);
+                state = stack[depth - 1] == ContainerType.OBJECT ? ParserState.EXPECT_PROPERTY : ParserState.EXPECT_VALUE;
+                return readEvent();
             case '{':
-                if (state != ParserState.EXPECT_VALUE) {
+                if (state != ParserState.FIRST_ITEM && state != ParserState.EXPECT_VALUE) {
                     throw createSyntaxException(ch);
                 }
                 consume();
-                stack.addFirst(ContainerType.OBJECT);
+                push(ContainerType.OBJECT);
                 state = ParserState.FIRST_PROPERTY;
                 return EventType.START_OBJECT;
             case '[':
-                if (state != ParserState.EXPECT_VALUE) {
+                if (state != ParserState.FIRST_ITEM && state != ParserState.EXPECT_VALUE) {
                     throw createSyntaxException(ch);
                 }
                 consume();
                 state = ParserState.FIRST_ITEM;
-                stack.addFirst(ContainerType.ARRAY);
+                push(ContainerType.ARRAY);
                 return EventType.START_ARRAY;
             case '}':
-                if ((state == ParserState.FIRST_PROPERTY || state == ParserState.EXPECT_COMMA_OR_END) && !stack.isEmpty() && stack.removeFirst() == ContainerType.OBJECT) {
+                if ((state == ParserState.FIRST_PROPERTY || state == ParserState.EXPECT_COMMA_OR_END) && pop(ContainerType.OBJECT)) {
                     consume();
+                    state = ParserState.EXPECT_COMMA_OR_END;
                     return EventType.END_OBJECT;
                 } else {
                     throw new JSONSyntaxException("Unexpected end of object in state " + state);
                 }
             case ']':
-                if ((state == ParserState.FIRST_ITEM || state == ParserState.EXPECT_COMMA_OR_END) && !stack.isEmpty() && stack.removeFirst() == ContainerType.ARRAY) {
+                if ((state == ParserState.FIRST_ITEM || state == ParserState.EXPECT_COMMA_OR_END) && pop(ContainerType.ARRAY)) {
                     consume();
+                    state = ParserState.EXPECT_COMMA_OR_END;
                     return EventType.END_ARRAY;
                 } else {
                     throw new JSONSyntaxException("Unexpected end of array in state " + state);
@@ -144,12 +232,42 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
         }
     }
 
+    /**
+     * If the current event started an object or array, validates and skips all of its children without
+     * allocating, so that the current event becomes the matching end event. Otherwise does nothing.
+     */
+    public void skipChildren() throws IOException {
+        if (currentEvent != EventType.START_OBJECT && currentEvent != EventType.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        skipping = true;
+        try {
+            do {
+                currentEvent = readEvent();
+            } while (depth > target);
+        } finally {
+            skipping = false;
+        }
+    }
+
     public boolean hasNextEvent() throws IOException {
         int ch = peekToken();
         return ch != -1;
     }
 
     public String getString() {
+        if (currentString == null) {
+            throw new IllegalStateException("No current string value");
+        }
+        return currentString.toString();
+    }
+
+    /**
+     * Returns the current property name or string value, which is a {@link CharSlice} of the input buffer
+     * if string slices are enabled and the value contains no escapes.
+     */
+    public CharSequence getCharSequence() {
         if (currentString == null) {
             throw new IllegalStateException("No current string value");
         }
@@ -157,6 +275,16 @@ public class JSONEventParser extends AbstractParser implements Iterator<JSONEven
     }
 
     public Double getNumber() {
+        if (currentNumber == null) {
+            throw new IllegalStateException("No current number value");
+        }
+        return currentNumber instanceof Double ? (Double)currentNumber : Double.valueOf(currentNumber.doubleValue());
+    }
+
+    /**
+     * Returns the current number, which is a {@link JSONNumber} if lazy numbers are enabled and a Double otherwise.
+     */
+    public Number getNumberValue() {
         if (currentNumber == null) {
             throw new IllegalStateException("No current number value");
         }
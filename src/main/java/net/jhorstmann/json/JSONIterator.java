@@ -1,14 +1,72 @@
 package net.jhorstmann.json;
 
 import java.math.BigDecimal;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class JSONIterator implements Iterator {
 
     protected final Iterator iter;
+    // set when iterating a JSONArray directly, iter is then an ArrayCursor which allows primitive access without boxing
+    private final JSONArray array;
 
     public JSONIterator(Iterator iter) {
         this.iter = iter;
+        this.array = null;
+    }
+
+    JSONIterator(JSONArray array) {
+        this.iter = new ArrayCursor(array);
+        this.array = array;
+    }
+
+    private static final class ArrayCursor implements Iterator {
+        private final JSONArray array;
+        private int cursor;
+        private int last = -1;
+        private int expectedModCount;
+
+        ArrayCursor(JSONArray array) {
+            this.array = array;
+            this.expectedModCount = array.modCount();
+        }
+
+        public boolean hasNext() {
+            return cursor < array.size();
+        }
+
+        int advance() {
+            if (array.modCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= array.size()) {
+                throw new NoSuchElementException();
+            }
+            last = cursor++;
+            return last;
+        }
+
+        public Object next() {
+            return array.get(advance());
+        }
+
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (array.modCount() != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            array.remove(last);
+            cursor = last;
+            last = -1;
+            expectedModCount = array.modCount();
+        }
+    }
+
+    private int advance() {
+        return ((ArrayCursor)iter).advance();
     }
 
     public boolean hasNext() {
@@ -24,16 +82,25 @@ public class JSONIterator implements Iterator {
     }
 
     public int nextInt() {
+        if (array != null) {
+            return array.getInt(advance());
+        }
         Object o = next();
         return JSONConversion.convertInt(o);
     }
 
     public long nextLong() {
+        if (array != null) {
+            return array.getLong(advance());
+        }
         Object o = next();
         return JSONConversion.convertLong(o);
     }
 
     public double nextDouble() {
+        if (array != null) {
+            return array.getDouble(advance());
+        }
         Object o = next();
         return JSONConversion.convertDouble(o);
     }
@@ -44,6 +111,9 @@ public class JSONIterator implements Iterator {
     }
 
     public boolean nextBoolean() {
+        if (array != null) {
+            return array.getBoolean(advance());
+        }
         Object o = next();
         return JSONConversion.convertBoolean(o);
     }
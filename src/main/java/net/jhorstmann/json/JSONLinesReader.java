@@ -0,0 +1,367 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads newline delimited JSON (JSON Lines), where every line of UTF-8 encoded input holds one value.
+ * <p>
+ * Input is read in large blocks that are split after their last line break. Each block is parsed as a batch of
+ * lines, on the threads of an executor if one is given. Results are delivered to the callback on the calling
+ * thread, either in input order or, if ordering is disabled, batch by batch as they complete. Syntax errors are
+ * reported per line and do not stop reading. Lines consisting only of whitespace are skipped.
+ */
+public class JSONLinesReader {
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    public static interface Callback {
+
+        /**
+         * Called with each parsed value and its line number, starting at 1.
+         */
+        public void value(long line, Object value) throws IOException;
+
+        /**
+         * Called for each line that could not be parsed.
+         */
+        public void error(long line, JSONSyntaxException ex) throws IOException;
+    }
+
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private boolean ordered = true;
+    private boolean lenient;
+    private boolean parseBigDecimal;
+    private boolean lazyNumbers;
+    private int maxDepth = AbstractParser.DEFAULT_MAX_DEPTH;
+    private long maxDocumentLength = Long.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private int maxNumberLength = Integer.MAX_VALUE;
+    private int maxElements = Integer.MAX_VALUE;
+
+    /**
+     * Creates a reader that parses all lines on the calling thread.
+     */
+    public JSONLinesReader(InputStream in) {
+        this(in, null, 1);
+    }
+
+    /**
+     * Creates a reader that parses up to {@code parallelism} blocks concurrently on the given executor,
+     * which is not shut down by the reader.
+     */
+    public JSONLinesReader(InputStream in, ExecutorService executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.in = in;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Sets whether results are delivered in input order, which is the default. Unordered delivery keeps the
+     * order of lines within a block, but delivers blocks as soon as they are parsed.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    public boolean isParseBigDecimal() {
+        return parseBigDecimal;
+    }
+
+    public void setParseBigDecimal(boolean parseBigDecimal) {
+        this.parseBigDecimal = parseBigDecimal;
+    }
+
+    public boolean isLazyNumbers() {
+        return lazyNumbers;
+    }
+
+    public void setLazyNumbers(boolean lazyNumbers) {
+        this.lazyNumbers = lazyNumbers;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum nesting depth of each line, see {@link AbstractParser#setMaxDepth(int)}.
+     * The other limits are applied to each line in the same way.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public long getMaxDocumentLength() {
+        return maxDocumentLength;
+    }
+
+    /**
+     * Sets the maximum number of characters of a line. Since lines are buffered as bytes until their end is
+     * found, reading fails with a {@link JSONSyntaxException} once a line takes more than three times as many
+     * bytes, which no line within the limit can.
+     */
+    public void setMaxDocumentLength(long maxDocumentLength) {
+        this.maxDocumentLength = maxDocumentLength;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    public void setMaxStringLength(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+    }
+
+    public int getMaxNumberLength() {
+        return maxNumberLength;
+    }
+
+    public void setMaxNumberLength(int maxNumberLength) {
+        this.maxNumberLength = maxNumberLength;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    private class Batch implements Callable<Batch> {
+        private final byte[] bytes;
+        private final int[] lineStarts;
+        private final long firstLine;
+        private Object[] values;
+        private JSONSyntaxException[] errors;
+
+        Batch(byte[] bytes, int[] lineStarts, long firstLine) {
+            this.bytes = bytes;
+            this.lineStarts = lineStarts;
+            this.firstLine = firstLine;
+        }
+
+        public Batch call() throws IOException {
+            int count = lineStarts.length - 1;
+            values = new Object[count];
+            JSONParser parser = new JSONParser(bytes, 0, 0);
+            parser.setLenient(lenient);
+            parser.setParseBigDecimal(parseBigDecimal);
+            parser.setLazyNumbers(lazyNumbers);
+            parser.setMaxDepth(maxDepth);
+            parser.setMaxDocumentLength(maxDocumentLength);
+            parser.setMaxStringLength(maxStringLength);
+            parser.setMaxNumberLength(maxNumberLength);
+            parser.setMaxElements(maxElements);
+            for (int i = 0; i < count; i++) {
+                int start = lineStarts[i];
+                parser.reset(bytes, start, lineStarts[i + 1] - start);
+                try {
+                    if (parser.peekToken() != -1) {
+                        values[i] = parser.parse();
+                    }
+                } catch (JSONSyntaxException ex) {
+                    if (errors == null) {
+                        errors = new JSONSyntaxException[count];
+                    }
+                    errors[i] = ex;
+                }
+            }
+            return this;
+        }
+
+        void deliver(Callback callback) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (errors != null && errors[i] != null) {
+                    callback.error(firstLine + i, errors[i]);
+                } else if (values[i] != null) {
+                    callback.value(firstLine + i, values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the start offsets of the lines in the given bytes, followed by the end offset.
+     */
+    private static int[] splitLines(byte[] bytes, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                count++;
+            }
+        }
+        boolean trailing = length > 0 && bytes[length - 1] != '\n';
+        int[] starts = new int[count + (trailing ? 2 : 1)];
+        int line = 1;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                // the line break itself is whitespace and part of the previous line
+                starts[line++] = i + 1;
+            }
+        }
+        if (trailing) {
+            starts[line] = length;
+        }
+        return starts;
+    }
+
+    private int fill(byte[] buf, int pos) throws IOException {
+        while (pos < buf.length) {
+            int len = in.read(buf, pos, buf.length - pos);
+            if (len < 0) {
+                break;
+            }
+            pos += len;
+        }
+        return pos;
+    }
+
+    /**
+     * Reads all lines until the end of input.
+     */
+    public void read(Callback callback) throws IOException {
+        LinkedList<Future<Batch>> pending = new LinkedList<Future<Batch>>();
+        CompletionService<Batch> completion = executor == null || ordered ? null : new ExecutorCompletionService<Batch>(executor);
+        int inFlight = 0;
+        byte[] buf = new byte[blockSize];
+        int length = 0;
+        long line = 1;
+        try {
+            while (true) {
+                int filled = fill(buf, length);
+                boolean eof = filled < buf.length;
+                int end = filled;
+                if (!eof) {
+                    while (end > length && buf[end - 1] != '\n') {
+                        end--;
+                    }
+                    if (end == length) {
+                        // no line break in the new data, the line is longer than a block
+                        if (filled / 3 > maxDocumentLength) {
+                            // a character takes at most three bytes, so the line certainly exceeds the limit
+                            throw new JSONSyntaxException("Line " + line + " exceeds the maximum document length of " + maxDocumentLength + " characters");
+                        }
+                        byte[] tmp = new byte[buf.length * 2];
+                        System.arraycopy(buf, 0, tmp, 0, filled);
+                        buf = tmp;
+                        length = filled;
+                        continue;
+                    }
+                }
+                byte[] bytes = new byte[end];
+                System.arraycopy(buf, 0, bytes, 0, end);
+                int[] lineStarts = splitLines(bytes, end);
+                Batch batch = new Batch(bytes, lineStarts, line);
+                line += lineStarts.length - 1;
+
+                if (executor == null) {
+                    batch.call().deliver(callback);
+                } else if (completion != null) {
+                    if (inFlight >= parallelism) {
+                        completion.take().get().deliver(callback);
+                        inFlight--;
+                    }
+                    completion.submit(batch);
+                    inFlight++;
+                } else {
+                    if (pending.size() >= parallelism) {
+                        pending.removeFirst().get().deliver(callback);
+                    }
+                    pending.add(executor.submit(batch));
+                }
+
+                if (eof) {
+                    break;
+                }
+                System.arraycopy(buf, end, buf, 0, filled - end);
+                length = filled - end;
+            }
+            while (!pending.isEmpty()) {
+                pending.removeFirst().get().deliver(callback);
+            }
+            for (; inFlight > 0; inFlight--) {
+                completion.take().get().deliver(callback);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JSONException("Interrupted while reading lines", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            } else {
+                throw new JSONException(cause.getMessage(), cause);
+            }
+        } finally {
+            for (Future<Batch> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Reads all values in input order, throwing the first syntax error.
+     */
+    public List<Object> readAll() throws IOException {
+        final List<Object> result = new ArrayList<Object>();
+        boolean wasOrdered = ordered;
+        ordered = true;
+        try {
+            read(new Callback() {
+                public void value(long line, Object value) {
+                    result.add(value);
+                }
+
+                public void error(long line, JSONSyntaxException ex) throws IOException {
+                    throw new JSONSyntaxException("Line " + line + ": " + ex.getMessage());
+                }
+            });
+        } finally {
+            ordered = wasOrdered;
+        }
+        return result;
+    }
+}
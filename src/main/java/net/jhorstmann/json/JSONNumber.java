@@ -0,0 +1,186 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Number that keeps the digits as they appeared in the input and converts them only when a value is requested.
+ * Writers output the original digits, so numbers that are passed through are neither converted nor rounded.
+ */
+public final class JSONNumber extends Number {
+    private static final long serialVersionUID = 1L;
+
+    private final String  text;
+    // significant digits and decimal exponent, only valid if exact is set
+    private final long    mantissa;
+    private final int     exponent;
+    private final boolean exact;
+    private final boolean integral;
+    private transient String canonical;
+
+    JSONNumber(String text, long mantissa, int exponent, boolean exact, boolean integral) {
+        this.text = text;
+        this.mantissa = mantissa;
+        this.exponent = exponent;
+        this.exact = exact;
+        this.integral = integral;
+    }
+
+    /**
+     * Parses the given JSON number literal.
+     */
+    public static JSONNumber valueOf(String text) throws NumberFormatException {
+        JSONParser parser = new JSONParser(text);
+        try {
+            JSONNumber result = parser.parseNumber();
+            if (parser.peekToken() != -1) {
+                throw new NumberFormatException("Invalid number " + text);
+            }
+            return result;
+        } catch (IOException ex) {
+            NumberFormatException ex2 = new NumberFormatException("Invalid number " + text);
+            ex2.initCause(ex);
+            throw ex2;
+        }
+    }
+
+    /**
+     * Returns true if the number has neither a fraction nor an exponent.
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    @Override
+    public int intValue() {
+        return (int)longValue();
+    }
+
+    @Override
+    public long longValue() {
+        if (exact && integral) {
+            return mantissa;
+        }
+        return bigDecimalValue().longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return Float.parseFloat(text);
+    }
+
+    @Override
+    public double doubleValue() {
+        if (exact) {
+            double d = FastDoubleConversion.toDouble(Math.abs(mantissa), exponent, text.charAt(0) == '-', false);
+            if (!Double.isNaN(d)) {
+                return d;
+            }
+        }
+        return Double.parseDouble(text);
+    }
+
+    public BigDecimal bigDecimalValue() {
+        if (exact) {
+            return BigDecimal.valueOf(mantissa, -exponent);
+        }
+        return new BigDecimal(text);
+    }
+
+    public BigInteger bigIntegerValue() {
+        if (exact && integral) {
+            return BigInteger.valueOf(mantissa);
+        }
+        return bigDecimalValue().toBigInteger();
+    }
+
+    /**
+     * Returns the value as sign, significant digits without leading or trailing zeros and the exponent of the
+     * last digit, which is the same for numerically equal numbers. Unlike a BigDecimal this also represents
+     * exponents beyond the range of an int.
+     */
+    private String canonicalText() {
+        String result = canonical;
+        if (result == null) {
+            canonical = result = canonicalize(text);
+        }
+        return result;
+    }
+
+    static String canonicalize(String text) {
+        int len = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        StringBuilder digits = new StringBuilder(len);
+        long fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < len; i++) {
+            char ch = text.charAt(i);
+            if (ch == '.') {
+                fraction = true;
+            } else if (ch == 'e' || ch == 'E') {
+                break;
+            } else {
+                if (digits.length() > 0 || ch != '0') {
+                    digits.append(ch);
+                }
+                if (fraction) {
+                    fractionDigits++;
+                }
+            }
+        }
+        if (digits.length() == 0) {
+            return "0";
+        }
+        BigInteger exponent = BigInteger.ZERO;
+        if (i < len) {
+            int start = text.charAt(i + 1) == '+' ? i + 2 : i + 1;
+            exponent = new BigInteger(text.substring(start));
+        }
+        int end = digits.length();
+        while (digits.charAt(end - 1) == '0') {
+            end--;
+        }
+        exponent = exponent.add(BigInteger.valueOf(digits.length() - end - fractionDigits));
+        return (negative ? "-" : "") + digits.substring(0, end) + "e" + exponent;
+    }
+
+    /**
+     * Two numbers are equal if they have the same numeric value, regardless of their notation.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (obj instanceof JSONNumber) {
+            JSONNumber other = (JSONNumber)obj;
+            if (text.equals(other.text)) {
+                return true;
+            } else if (exact && other.exact) {
+                return bigDecimalValue().compareTo(other.bigDecimalValue()) == 0;
+            } else {
+                return canonicalText().equals(other.canonicalText());
+            }
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return canonicalText().hashCode();
+    }
+
+    /**
+     * Returns the number as it appeared in the input.
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
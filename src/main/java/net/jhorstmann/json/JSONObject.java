@@ -1,12 +1,407 @@
 package net.jhorstmann.json;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
 import java.util.Date;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of the properties of a JSON object, iterating in insertion order.
+ * <p>
+ * Keys and values are stored in two parallel arrays. Small objects are searched linearly, which for typical records
+ * is faster than hashing and avoids the entry objects of a {@link java.util.LinkedHashMap}. Objects with more than
+ * {@value #LINEAR_SEARCH_THRESHOLD} properties additionally build an open addressing index into the arrays.
+ * Removing a property shifts the following ones and is therefore linear in the size of the object.
+ * <p>
+ * Objects created by the parsers share the key array and index with all other objects that have the same keys in
+ * the same order, see {@link JSONShape}. The shared layout is copied when a property is added or removed.
+ */
+public class JSONObject extends AbstractMap<String, Object> implements Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int LINEAR_SEARCH_THRESHOLD = 8;
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final String[] EMPTY_KEYS = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private String[] keys;
+    private Object[] values;
+    private int      size;
+    // slots of the keys plus one, or 0 for free buckets, only used above the linear search threshold
+    private int[]    index;
+    private transient JSONShape shape;
+    private transient int modCount;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    public JSONObject() {
+        this.keys = EMPTY_KEYS;
+        this.values = EMPTY_VALUES;
+    }
+
+    public JSONObject(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.keys = new String[initialCapacity];
+        this.values = new Object[initialCapacity];
+    }
+
+    public JSONObject(Map<String, ?> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    /**
+     * Creates an empty object whose properties are added with {@link #putShaped(String, Object)}.
+     */
+    JSONObject(JSONShape root, int initialCapacity) {
+        this.shape = root;
+        this.keys = root.keys;
+        this.values = initialCapacity == 0 ? EMPTY_VALUES : new Object[initialCapacity];
+    }
+
+    /**
+     * Returns the capacity to grow a full array of the given size to, which adds at least one slot.
+     */
+    private static int newCapacity(int size) {
+        return size == 0 ? DEFAULT_CAPACITY : Math.max(size + 1, size + (size >> 1));
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == b || a != null && a.equals(b);
+    }
+
+    private int indexOf(Object key) {
+        String[] keys = this.keys;
+        int[] index = shape == null ? this.index : shape.getIndex();
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                if (eq(key, keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int b = hash(key) & mask; index[b] != 0; b = (b + 1) & mask) {
+            int i = index[b] - 1;
+            if (eq(key, keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int[] buildIndex(String[] keys, int size) {
+        int capacity = Integer.highestOneBit(size * 3 - 1) << 1;
+        int[] index = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int b = hash(keys[i]) & mask;
+            while (index[b] != 0) {
+                b = (b + 1) & mask;
+            }
+            index[b] = i + 1;
+        }
+        return index;
+    }
+
+    private void rebuildIndex() {
+        index = size <= LINEAR_SEARCH_THRESHOLD ? null : buildIndex(keys, size);
+    }
+
+    /**
+     * Copies the shared key layout before the keys are modified.
+     */
+    private void detach() {
+        String[] tmp = new String[values.length];
+        System.arraycopy(keys, 0, tmp, 0, size);
+        keys = tmp;
+        shape = null;
+        rebuildIndex();
+    }
+
+    JSONShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Appends a property while parsing. Objects that receive the same keys in the same order from the same root
+     * shape share their key layout. Falls back to {@link #put(String, Object)} for duplicate keys or when the
+     * shape tree is full.
+     */
+    void putShaped(String key, Object value) {
+        JSONShape next = shape != null && key != null && indexOf(key) < 0 ? shape.transition(key) : null;
+        if (next == null) {
+            put(key, value);
+            return;
+        }
+        if (size == values.length) {
+            Object[] tmp = new Object[newCapacity(size)];
+            System.arraycopy(values, 0, tmp, 0, size);
+            values = tmp;
+        }
+        values[size++] = value;
+        shape = next;
+        keys = next.keys;
+        modCount++;
+    }
+
+    private void addToIndex(int i) {
+        if (index == null || size * 2 > index.length) {
+            rebuildIndex();
+        } else {
+            int mask = index.length - 1;
+            int b = hash(keys[i]) & mask;
+            while (index[b] != 0) {
+                b = (b + 1) & mask;
+            }
+            index[b] = i + 1;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < size; i++) {
+            if (eq(value, values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            Object old = values[i];
+            values[i] = value;
+            return old;
+        }
+        if (shape != null) {
+            detach();
+        }
+        if (size == values.length) {
+            int capacity = newCapacity(size);
+            String[] newKeys = new String[capacity];
+            Object[] newValues = new Object[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            keys = newKeys;
+            values = newValues;
+        }
+        i = size++;
+        keys[i] = key;
+        values[i] = value;
+        modCount++;
+        if (size > LINEAR_SEARCH_THRESHOLD) {
+            addToIndex(i);
+        }
+        return null;
+    }
+
+    private void removeAt(int i) {
+        if (shape != null) {
+            detach();
+        }
+        int tail = size - i - 1;
+        if (tail > 0) {
+            System.arraycopy(keys, i + 1, keys, i, tail);
+            System.arraycopy(values, i + 1, values, i, tail);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (shape != null) {
+            shape = null;
+            keys = new String[values.length];
+        }
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        index = null;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            JSONObject.this.clear();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new Entry(last);
+        }
+
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class Entry implements Map.Entry<String, Object> {
+        private final int slot;
+
+        Entry(int slot) {
+            this.slot = slot;
+        }
+
+        public String getKey() {
+            return keys[slot];
+        }
+
+        public Object getValue() {
+            return values[slot];
+        }
+
+        public Object setValue(Object value) {
+            Object old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry e = (Map.Entry)obj;
+            return eq(getKey(), e.getKey()) && eq(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object key = getKey();
+            Object value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the key array may have been shared with other objects
+        detach();
+    }
+
+    @Override
+    public JSONObject clone() {
+        try {
+            JSONObject result = (JSONObject)super.clone();
+            result.keys = shape == null ? keys.clone() : keys;
+            result.values = values.clone();
+            result.index = index == null ? null : index.clone();
+            result.entrySet = null;
+            result.modCount = 0;
+            return result;
+        } catch (CloneNotSupportedException ex) {
+            throw new InternalError();
+        }
+    }
 
-public class JSONObject extends LinkedHashMap<String, Object> {
     public int getInt(String key) {
         Object o = get(key);
         return JSONConversion.convertInt(o);
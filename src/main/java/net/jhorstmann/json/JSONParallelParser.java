@@ -0,0 +1,337 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import net.jhorstmann.json.JSONParser.ArrayCallback;
+import net.jhorstmann.json.JSONParser.ValueType;
+
+/**
+ * Parses the elements of a large UTF-8 encoded top-level array concurrently.
+ * <p>
+ * A sequential pre-scan locates the top-level commas, only tracking nesting depth and strings, which is possible
+ * on the raw bytes because all structural characters are ASCII and never occur inside multi-byte sequences. The
+ * elements are then split into ranges that are parsed by separate {@link JSONParser} instances on the given
+ * executor. The executor is not shut down by this class. Syntax errors are reported with the position in the
+ * whole document by parsing it again sequentially.
+ */
+public class JSONParallelParser {
+    private static final int MIN_PARALLEL_LENGTH = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private boolean lenient;
+    private boolean parseBigDecimal;
+    private boolean lazyNumbers;
+    private int maxDepth = AbstractParser.DEFAULT_MAX_DEPTH;
+    private long maxDocumentLength = Long.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private int maxNumberLength = Integer.MAX_VALUE;
+    private int maxElements = Integer.MAX_VALUE;
+
+    public JSONParallelParser(ExecutorService executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    public JSONParallelParser(ExecutorService executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    public boolean isParseBigDecimal() {
+        return parseBigDecimal;
+    }
+
+    public void setParseBigDecimal(boolean parseBigDecimal) {
+        this.parseBigDecimal = parseBigDecimal;
+    }
+
+    public boolean isLazyNumbers() {
+        return lazyNumbers;
+    }
+
+    public void setLazyNumbers(boolean lazyNumbers) {
+        this.lazyNumbers = lazyNumbers;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum nesting depth, see {@link AbstractParser#setMaxDepth(int)}. The other limits are
+     * forwarded to the parsers in the same way.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public long getMaxDocumentLength() {
+        return maxDocumentLength;
+    }
+
+    public void setMaxDocumentLength(long maxDocumentLength) {
+        this.maxDocumentLength = maxDocumentLength;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    public void setMaxStringLength(int maxStringLength) {
+        this.maxStringLength = maxStringLength;
+    }
+
+    public int getMaxNumberLength() {
+        return maxNumberLength;
+    }
+
+    public void setMaxNumberLength(int maxNumberLength) {
+        this.maxNumberLength = maxNumberLength;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    public void setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+    }
+
+    private JSONParser createParser(byte[] utf8, int offset, int length) {
+        JSONParser parser = new JSONParser(utf8, offset, length);
+        parser.setLenient(lenient);
+        parser.setParseBigDecimal(parseBigDecimal);
+        parser.setLazyNumbers(lazyNumbers);
+        parser.setMaxDepth(maxDepth);
+        parser.setMaxDocumentLength(maxDocumentLength);
+        parser.setMaxStringLength(maxStringLength);
+        parser.setMaxNumberLength(maxNumberLength);
+        parser.setMaxElements(maxElements);
+        return parser;
+    }
+
+    /**
+     * Creates a parser for a range of elements, which lie one level below the top-level array.
+     * The length and element count of the whole array are checked before splitting it.
+     */
+    private JSONParser createChunkParser(byte[] utf8, int offset, int length) {
+        JSONParser parser = createParser(utf8, offset, length);
+        parser.setMaxDepth(maxDepth - 1);
+        parser.setMaxDocumentLength(Long.MAX_VALUE);
+        return parser;
+    }
+
+    /**
+     * Returns true if the array can be split, arrays violating the limits are parsed sequentially to report the error.
+     */
+    private boolean isParallel(int[] bounds, int length) {
+        // input of at most the maximum length in bytes has at most as many characters
+        return bounds != null && length >= MIN_PARALLEL_LENGTH && maxDepth >= 1 && bounds.length - 1 <= maxElements
+                && length <= maxDocumentLength;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Returns the offset of the opening bracket followed by the offsets of the commas and the closing bracket
+     * delimiting the top-level elements, or null if the input is not a single array.
+     */
+    static int[] scanElements(byte[] buf, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && isWhitespace(buf[i])) {
+            i++;
+        }
+        if (i >= end || buf[i] != '[') {
+            return null;
+        }
+        int[] bounds = new int[64];
+        bounds[0] = i;
+        int count = 1;
+        int depth = 0;
+        boolean element = false;
+        for (i++; i < end; i++) {
+            int b = buf[i];
+            if (b == '"' || b == '\'') {
+                for (i++; i < end && buf[i] != b; i++) {
+                    if (buf[i] == '\\') {
+                        i++;
+                    }
+                }
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && depth > 0) {
+                depth--;
+            } else if (depth == 0 && (b == ',' || b == ']' || b == '}')) {
+                if (b == '}') {
+                    return null;
+                }
+                if (b == ']' && !element && count == 1) {
+                    // empty array
+                    return null;
+                }
+                if (count == bounds.length) {
+                    int[] tmp = new int[count * 2];
+                    System.arraycopy(bounds, 0, tmp, 0, count);
+                    bounds = tmp;
+                }
+                bounds[count++] = i;
+                element = false;
+                if (b == ']') {
+                    for (int j = i + 1; j < end; j++) {
+                        if (!isWhitespace(buf[j])) {
+                            return null;
+                        }
+                    }
+                    int[] result = new int[count];
+                    System.arraycopy(bounds, 0, result, 0, count);
+                    return result;
+                }
+                continue;
+            }
+            if (!isWhitespace(b)) {
+                element = true;
+            }
+        }
+        return null;
+    }
+
+    public JSONArray parseArray(byte[] utf8) throws IOException {
+        return parseArray(utf8, 0, utf8.length);
+    }
+
+    public JSONArray parseArray(String json) throws IOException {
+        try {
+            return parseArray(json.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException("UTF-8 is not supported", ex);
+        }
+    }
+
+    public JSONArray parseArray(byte[] utf8, int offset, int length) throws IOException {
+        int[] bounds = scanElements(utf8, offset, length);
+        if (!isParallel(bounds, length)) {
+            return createParser(utf8, offset, length).parseArray();
+        }
+        final Object[] values = new Object[bounds.length - 1];
+        parseElements(utf8, offset, length, bounds, new JSONParser.AbstractArrayCallback() {
+            public void item(JSONParser parser, int idx, ValueType type) throws IOException {
+                values[idx] = parser.parseValue();
+            }
+        });
+        JSONArray result = new JSONArray(values.length);
+        for (Object value : values) {
+            if (value instanceof Double) {
+                result.addDouble(((Double)value).doubleValue());
+            } else if (value instanceof Boolean) {
+                result.addBoolean(((Boolean)value).booleanValue());
+            } else {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses the array and calls {@link ArrayCallback#item(JSONParser, int, ValueType)} for every element,
+     * concurrently from the threads of the executor, so the callback has to be thread-safe. The begin and end
+     * methods are called on the current thread.
+     */
+    public void parseArray(byte[] utf8, int offset, int length, ArrayCallback callback) throws IOException {
+        int[] bounds = scanElements(utf8, offset, length);
+        if (!isParallel(bounds, length)) {
+            createParser(utf8, offset, length).parseArray(callback);
+            return;
+        }
+        callback.beginArray();
+        parseElements(utf8, offset, length, bounds, callback);
+        callback.endArray();
+    }
+
+    private void parseElements(final byte[] utf8, int offset, int length, final int[] bounds, final ArrayCallback callback) throws IOException {
+        int count = bounds.length - 1;
+        int chunks = Math.max(1, Math.min(count, parallelism * CHUNKS_PER_THREAD));
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int first = (int)((long)count * c / chunks);
+            final int last = (int)((long)count * (c + 1) / chunks);
+            if (first == last) {
+                continue;
+            }
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws IOException {
+                    // the range lies between the delimiters before the first and after the last element
+                    int start = bounds[first] + 1;
+                    JSONParser parser = createChunkParser(utf8, start, bounds[last] - start);
+                    for (int idx = first; idx < last; idx++) {
+                        int ch = parser.peekToken();
+                        callback.item(parser, idx, parser.nextItemType(ch));
+                        ch = parser.peekToken();
+                        if (idx < last - 1) {
+                            if (ch != ',') {
+                                throw parser.createSyntaxException(ch, "comma");
+                            }
+                            parser.consume();
+                        } else if (ch != -1) {
+                            throw parser.createSyntaxException(ch, "closing bracket or comma");
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        Throwable failure = null;
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause();
+                }
+            } catch (InterruptedException ex) {
+                for (Future<Object> f : futures) {
+                    f.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new JSONException("Interrupted while parsing", ex);
+            }
+        }
+        if (failure instanceof JSONSyntaxException) {
+            // parse again to report the position in the whole document
+            createParser(utf8, offset, length).parseArray(new JSONParser.AbstractArrayCallback() {
+                public void item(JSONParser parser, int idx, ValueType type) throws IOException {
+                    parser.skipValue();
+                }
+            });
+            throw (JSONSyntaxException)failure;
+        } else if (failure instanceof IOException) {
+            throw (IOException)failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        } else if (failure != null) {
+            throw new JSONException(failure.getMessage(), failure);
+        }
+    }
+}
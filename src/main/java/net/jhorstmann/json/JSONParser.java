@@ -2,12 +2,12 @@ package net.jhorstmann.json;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
 
 public class JSONParser extends AbstractParser {
     
@@ -47,19 +47,44 @@ public class JSONParser extends AbstractParser {
     }
 
     private boolean lenient;
-    private boolean parseNullSingleton;
+    private boolean parseNullSingleton = true;
+    // key layouts of parsed objects and the size of the last one, kept across resets
+    private JSONShape shapes;
+    private int lastObjectSize;
 
     public JSONParser(String str) {
-        this(new StringReader(str));
+        super(str);
     }
 
     public JSONParser(InputStream in) {
-        this(new InputStreamReader(in, Charset.forName("UTF-8")));
+        this(new UTF8Reader(in));
+    }
+
+    public JSONParser(byte[] utf8) {
+        this(new UTF8Reader(utf8, 0, utf8.length));
+    }
+
+    public JSONParser(byte[] utf8, int offset, int length) {
+        this(new UTF8Reader(utf8, offset, length));
+    }
+
+    /**
+     * Parses the remaining UTF-8 encoded bytes of the buffer, the position of the buffer is not modified.
+     */
+    public JSONParser(ByteBuffer utf8) {
+        this(new UTF8Reader(utf8));
+    }
+
+    /**
+     * Parses UTF-8 encoded content of the channel starting at its current position, using memory mapped windows of the file.
+     * The channel is not closed by the parser.
+     */
+    public JSONParser(FileChannel channel) {
+        this(new MappedFileReader(channel));
     }
 
     public JSONParser(Reader reader) {
         super(reader);
-        parseNullSingleton = true;
     }
 
     public JSONParser(CharSequence cs) {
@@ -93,6 +118,23 @@ public class JSONParser extends AbstractParser {
         return o;
     }
 
+    /**
+     * Returns true if another value follows in the input, for reading a stream of concatenated documents
+     * with {@link #parseNext()}.
+     */
+    public boolean hasNext() throws IOException {
+        return peekToken() != -1;
+    }
+
+    /**
+     * Parses the next of several top-level values that follow each other directly or separated by whitespace,
+     * like <code>{"a": 1}{"b": 2}</code>. Unlike {@link #parse()} the input after the value is not checked, so
+     * the following documents can be read by further calls on the same parser.
+     */
+    public Object parseNext() throws IOException {
+        return parseValue();
+    }
+
     public Object parseAtom() throws IOException {
         int ch = peekToken();
         return parseAtom(ch);
@@ -111,12 +153,26 @@ public class JSONParser extends AbstractParser {
                 return parseUnsignedDecimal(ch);
             case '\'':
             case '"':
+                // values may end up in trees that outlive the input buffer, so slices are not used here
                 return parseStringImpl(ch);
             default:
                 throw createSyntaxException(ch);
         }
     }
 
+    /**
+     * Parses a string like {@link #parseString()} but returns a {@link CharSlice} of the input buffer
+     * whenever possible, regardless of the string slices setting.
+     */
+    public CharSequence parseCharSequence() throws IOException {
+        int ch = peekToken();
+        if (ch == '"' || ch == '\'') {
+            return parseStringSlice(ch);
+        } else {
+            throw createSyntaxException(ch, "quote");
+        }
+    }
+
     public Object parseValue() throws IOException {
         int ch = peekToken();
         if (ch == '{') {
@@ -128,6 +184,112 @@ public class JSONParser extends AbstractParser {
         }
     }
     
+    /**
+     * Validates and skips the next value without building it, nested objects and arrays included.
+     * Callbacks can use this to advance past values they are not interested in.
+     */
+    public void skipValue() throws IOException {
+        int ch = peekToken();
+        switch (ch) {
+            case '{':
+                skipObject();
+                break;
+            case '[':
+                skipArray();
+                break;
+            case 'n':
+                consume("null");
+                break;
+            case 't':
+                consume("true");
+                break;
+            case 'f':
+                consume("false");
+                break;
+            case '+': case '-':
+            case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9':
+                skipNumber(ch);
+                break;
+            case '\'':
+            case '"':
+                skipStringImpl(ch);
+                break;
+            default:
+                throw createSyntaxException(ch);
+        }
+    }
+
+    private void skipObject() throws IOException {
+        consume('{');
+        enterContainer();
+        int ch = peekToken();
+        int count = 0;
+        if (ch == '}') {
+            consume();
+            exitContainer();
+            return;
+        }
+        while (true) {
+            if (ch == '"' || ch == '\'') {
+                skipStringImpl(ch);
+            } else if (lenient && isIdentifierStart(ch)) {
+                consume();
+                while (isIdentifierPart(peekChar())) {
+                    nextChar();
+                }
+            } else {
+                throw createSyntaxException(ch, "quote");
+            }
+            if (lenient) {
+                consumeLenientSeparator();
+            } else {
+                consumeToken(':');
+            }
+            skipValue();
+            checkElements(++count);
+
+            ch = peekToken();
+            if (ch == '}') {
+                consume();
+                exitContainer();
+                break;
+            } else if (ch == ',' || lenient && ch == ';') {
+                consume();
+                ch = peekToken();
+            } else {
+                throw createSyntaxException(ch, "closing brace or comma");
+            }
+        }
+    }
+
+    private void skipArray() throws IOException {
+        consume('[');
+        enterContainer();
+        int ch = peekToken();
+        int count = 0;
+        if (ch == ']') {
+            consume();
+            exitContainer();
+            return;
+        }
+        while (true) {
+            skipValue();
+            checkElements(++count);
+
+            ch = peekToken();
+            if (ch == ']') {
+                consume();
+                exitContainer();
+                break;
+            } else if (ch == ',') {
+                consume();
+            } else {
+                throw createSyntaxException(ch);
+            }
+        }
+    }
+
     private Boolean parseBoolean(int ch) throws IOException {
         if (ch == 't') {
             consume("true");
@@ -161,27 +323,50 @@ public class JSONParser extends AbstractParser {
     }
 
     public float parseFloat() throws IOException {
-        return parseBigDecimal().floatValue();
+        int ch = peekToken();
+        return parseFloatValue(ch);
+    }
+
+    /**
+     * Parses a number into a {@link JSONNumber} that keeps its original digits.
+     */
+    public JSONNumber parseNumber() throws IOException {
+        int ch = peekToken();
+        return parseJSONNumber(ch);
     }
 
     public double parseDouble() throws IOException {
-        return parseBigDecimal().doubleValue();
+        int ch = peekToken();
+        return parseDoubleValue(ch);
     }
 
     public byte parseByte() throws IOException, ArithmeticException {
-        return parseBigDecimal().byteValueExact();
+        long value = parseLong();
+        if (value != (byte)value) {
+            throw new ArithmeticException("Overflow");
+        }
+        return (byte)value;
     }
 
     public short parseShort() throws IOException, ArithmeticException {
-        return parseBigDecimal().shortValueExact();
+        long value = parseLong();
+        if (value != (short)value) {
+            throw new ArithmeticException("Overflow");
+        }
+        return (short)value;
     }
 
     public int parseInt() throws IOException, ArithmeticException {
-        return parseBigDecimal().intValueExact();
+        long value = parseLong();
+        if (value != (int)value) {
+            throw new ArithmeticException("Overflow");
+        }
+        return (int)value;
     }
 
     public long parseLong() throws IOException, ArithmeticException {
-        return parseBigDecimal().longValueExact();
+        int ch = peekToken();
+        return parseLongValue(ch);
     }
 
     public JSONObject parseObject() throws IOException {
@@ -190,13 +375,17 @@ public class JSONParser extends AbstractParser {
     }
 
     private JSONObject parseObjectImpl() throws IOException {
-        final JSONObject result = new JSONObject();
+        if (shapes == null) {
+            shapes = new JSONShape();
+        }
+        final JSONObject result = new JSONObject(shapes, lastObjectSize);
         parseObject(new AbstractObjectCallback() {
             public void property(JSONParser parser, String property, ValueType type) throws IOException {
                 Object value = parser.parseValue();
-                result.put(property, value);
+                result.putShaped(property, value);
             }
         });
+        lastObjectSize = result.size();
         return result;
     }
     
@@ -225,15 +414,32 @@ public class JSONParser extends AbstractParser {
                 break;
             }
         }
-        return sb.toString();
+        SymbolTable symbols = getSymbolTable();
+        return symbols == null ? sb.toString() : symbols.lookup(sb.toString());
     }
     
+    private void consumeLenientSeparator() throws IOException {
+        int ch = peekToken();
+        if (ch == ':') {
+            consume();
+        } else if (ch == '=') {
+            nextChar();
+            ch = peekChar();
+            if (ch == '>') {
+                nextChar();
+            }
+        }
+    }
+
     public void parseObject(ObjectCallback cb) throws IOException {
         consume('{');
+        enterContainer();
         cb.beginObject();
         int ch = peekToken();
+        int count = 0;
         if (ch == '}') {
             consume();
+            exitContainer();
             cb.endObject();
         } else {
             if (lenient) {
@@ -241,29 +447,22 @@ public class JSONParser extends AbstractParser {
                     if (ch == '"' || ch == '\'' || isIdentifierStart(ch)) {
                         String str;
                         if (ch == '"' || ch == '\'') {
-                            str = parseStringImpl(ch);
+                            str = parsePropertyName(ch);
                         } else {
                             str = parseIdentifier(ch);
                         }
                         
-                        ch = peekToken();
-                        if (ch == ':') {
-                            consume();
-                        } else if (ch == '=') {
-                            nextChar();
-                            ch = peekChar();
-                            if (ch == '>') {
-                                nextChar();
-                            }
-                        }
+                        consumeLenientSeparator();
 
                         ch = peekToken();
                         ValueType type = nextItemType(ch);
                         cb.property(this, str, type);
+                        checkElements(++count);
 
                         ch = peekToken();
                         if (ch == '}') {
                             consume();
+                            exitContainer();
                             cb.endObject();
                             break;
                         }
@@ -279,16 +478,18 @@ public class JSONParser extends AbstractParser {
             } else {
                 while (true) {
                     if (ch == '"' || ch == '\'') {
-                        String str = parseStringImpl(ch);
+                        String str = parsePropertyName(ch);
                         consumeToken(':');
 
                         ch = peekToken();
                         ValueType type = nextItemType(ch);
                         cb.property(this, str, type);
+                        checkElements(++count);
 
                         ch = peekToken();
                         if (ch == '}') {
                             consume();
+                            exitContainer();
                             cb.endObject();
                             break;
                         }
@@ -315,9 +516,17 @@ public class JSONParser extends AbstractParser {
     
     private JSONArray parseArrayImpl() throws IOException {
         final JSONArray result = new JSONArray();
+        final boolean primitiveNumbers = !isParseBigDecimal() && !isLazyNumbers();
         parseArray(new AbstractArrayCallback() {
             public void item(JSONParser parser, int idx, ValueType type) throws IOException {
-                result.add(parser.parseValue());
+                // homogeneous arrays of doubles or booleans are stored without boxing
+                if (type == ValueType.NUMBER && primitiveNumbers) {
+                    result.addDouble(parser.parseDouble());
+                } else if (type == ValueType.BOOLEAN) {
+                    result.addBoolean(parser.parseBoolean());
+                } else {
+                    result.add(parser.parseValue());
+                }
             }
         });
         return result;
@@ -325,22 +534,26 @@ public class JSONParser extends AbstractParser {
 
     public void parseArray(ArrayCallback cb) throws IOException {
         consume('[');
+        enterContainer();
         cb.beginArray();
         int ch = peekToken();
         int idx = 0;
 
         if (ch == ']') {
             consume();
+            exitContainer();
             cb.endArray();
         } else {
             while (true) {
                 ValueType type = nextItemType(ch);
                 cb.item(this, idx, type);
                 idx++;
+                checkElements(idx);
 
                 ch = peekToken();
                 if (ch == ']') {
                     consume();
+                    exitContainer();
                     cb.endArray();
                     break;
                 } else if (ch == ',') {
@@ -353,7 +566,100 @@ public class JSONParser extends AbstractParser {
         }
     }
 
-    private ValueType nextItemType(int ch) throws IOException {
+    /**
+     * Advances into nested objects and arrays along the given path segments, skipping all other values,
+     * and leaves the parser positioned before the addressed value. Returns false if the path does not exist.
+     * On success the parser is inside one container per segment, which the caller has to leave again with
+     * {@link #exitContainer()} once it is done; on failure the containers have already been left.
+     */
+    boolean seek(List<String> segments) throws IOException {
+        int depth = 0;
+        for (String segment : segments) {
+            int ch = peekToken();
+            if (ch == '{') {
+                consume();
+                enterContainer();
+                depth++;
+                ch = peekToken();
+                while (true) {
+                    if (ch == '}') {
+                        consume();
+                        return seekFailed(depth);
+                    }
+                    String key;
+                    if (ch == '"' || ch == '\'') {
+                        key = parsePropertyName(ch);
+                    } else if (lenient && isIdentifierStart(ch)) {
+                        key = parseIdentifier(ch);
+                    } else {
+                        throw createSyntaxException(ch, "quote");
+                    }
+                    if (lenient) {
+                        consumeLenientSeparator();
+                    } else {
+                        consumeToken(':');
+                    }
+                    if (key.equals(segment)) {
+                        break;
+                    }
+                    skipValue();
+                    ch = peekToken();
+                    if (ch == ',' || (lenient && ch == ';')) {
+                        consume();
+                        ch = peekToken();
+                    } else if (ch != '}') {
+                        throw createSyntaxException(ch, "closing brace or comma");
+                    }
+                }
+            } else if (ch == '[') {
+                int index;
+                try {
+                    index = Integer.parseInt(segment);
+                } catch (NumberFormatException ex) {
+                    index = -1;
+                }
+                if (index < 0) {
+                    skipValue();
+                    return seekFailed(depth);
+                }
+                consume();
+                enterContainer();
+                depth++;
+                ch = peekToken();
+                for (int i = 0; i < index; i++) {
+                    if (ch == ']') {
+                        consume();
+                        return seekFailed(depth);
+                    }
+                    skipValue();
+                    ch = peekToken();
+                    if (ch == ',') {
+                        consume();
+                        ch = peekToken();
+                    } else if (ch != ']') {
+                        throw createSyntaxException(ch, "closing bracket or comma");
+                    }
+                }
+                if (ch == ']') {
+                    consume();
+                    return seekFailed(depth);
+                }
+            } else {
+                skipValue();
+                return seekFailed(depth);
+            }
+        }
+        return true;
+    }
+
+    private boolean seekFailed(int depth) {
+        for (int i = 0; i < depth; i++) {
+            exitContainer();
+        }
+        return false;
+    }
+
+    ValueType nextItemType(int ch) throws IOException {
         switch (ch) {
             case 'n': return ValueType.NULL;
             case 't':
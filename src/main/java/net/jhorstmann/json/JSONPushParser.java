@@ -0,0 +1,335 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Non-blocking parser for UTF-8 encoded JSON that is fed with chunks of input as they arrive.
+ * <p>
+ * Chunks are appended to an internal buffer and scanned incrementally for the end of the next top-level value,
+ * keeping the scanner state between calls to {@link #feed(byte[], int, int)}. Once a value is complete it can be
+ * parsed into a tree with {@link #parseNext()} or read as events with {@link #nextEvents()}, both of which return
+ * null instead of blocking if more input is needed. Consecutive values may follow each other directly or be
+ * separated by whitespace. Top-level numbers and literals are only complete when followed by a delimiter or
+ * after {@link #endOfInput()} was called.
+ */
+public class JSONPushParser {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private byte[]  buffer;
+    private ByteBuffer words;
+    private int     start;
+    private int     scan;
+    private int     length;
+    private int     documentEnd = -1;
+    private boolean endOfInput;
+    private long    maxDocumentLength = Long.MAX_VALUE;
+
+    // state of the scanner between chunks
+    private int     depth;
+    private int     quote;
+    private boolean started;
+    private boolean inString;
+    private boolean inEscape;
+    private boolean inScalar;
+
+    private final JSONParser parser;
+    private final JSONEventParser eventParser;
+
+    public JSONPushParser() {
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+        this.parser = new JSONParser("");
+        this.eventParser = new JSONEventParser("");
+    }
+
+    public boolean isLenient() {
+        return parser.isLenient();
+    }
+
+    public void setLenient(boolean lenient) {
+        parser.setLenient(lenient);
+    }
+
+    public boolean isParseBigDecimal() {
+        return parser.isParseBigDecimal();
+    }
+
+    public void setParseBigDecimal(boolean parseBigDecimal) {
+        parser.setParseBigDecimal(parseBigDecimal);
+    }
+
+    public SymbolTable getSymbolTable() {
+        return parser.getSymbolTable();
+    }
+
+    public void setSymbolTable(SymbolTable symbolTable) {
+        parser.setSymbolTable(symbolTable);
+        eventParser.setSymbolTable(symbolTable);
+    }
+
+    public int getMaxDepth() {
+        return parser.getMaxDepth();
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        parser.setMaxDepth(maxDepth);
+        eventParser.setMaxDepth(maxDepth);
+    }
+
+    public long getMaxDocumentLength() {
+        return maxDocumentLength;
+    }
+
+    /**
+     * Sets the maximum number of bytes of input that are buffered but not yet parsed, which is unlimited by
+     * default. Since an incomplete document stays buffered until it is complete, this also limits the length
+     * of a single document. Input exceeding the limit is rejected by {@link #feed(byte[], int, int)}.
+     */
+    public void setMaxDocumentLength(long maxDocumentLength) {
+        this.maxDocumentLength = maxDocumentLength;
+        parser.setMaxDocumentLength(maxDocumentLength);
+        eventParser.setMaxDocumentLength(maxDocumentLength);
+    }
+
+    public int getMaxStringLength() {
+        return parser.getMaxStringLength();
+    }
+
+    public void setMaxStringLength(int maxStringLength) {
+        parser.setMaxStringLength(maxStringLength);
+        eventParser.setMaxStringLength(maxStringLength);
+    }
+
+    public int getMaxNumberLength() {
+        return parser.getMaxNumberLength();
+    }
+
+    public void setMaxNumberLength(int maxNumberLength) {
+        parser.setMaxNumberLength(maxNumberLength);
+        eventParser.setMaxNumberLength(maxNumberLength);
+    }
+
+    public int getMaxElements() {
+        return parser.getMaxElements();
+    }
+
+    public void setMaxElements(int maxElements) {
+        parser.setMaxElements(maxElements);
+        eventParser.setMaxElements(maxElements);
+    }
+
+    private void checkLength(int len) throws JSONSyntaxException {
+        if ((long)length - start + len > maxDocumentLength) {
+            throw new JSONSyntaxException("Buffered input exceeds the maximum document length of " + maxDocumentLength + " bytes");
+        }
+    }
+
+    private void ensureCapacity(int len) {
+        if (length + len > buffer.length) {
+            if (start > 0) {
+                // discard documents that were already parsed
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+                scan -= start;
+                if (documentEnd >= 0) {
+                    documentEnd -= start;
+                }
+                start = 0;
+            }
+            if (length + len > buffer.length) {
+                byte[] tmp = new byte[Math.max(buffer.length * 2, length + len)];
+                System.arraycopy(buffer, 0, tmp, 0, length);
+                buffer = tmp;
+                words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+    /**
+     * Appends the given bytes, fails without buffering them if the maximum document length would be exceeded.
+     */
+    public void feed(byte[] bytes, int offset, int len) throws JSONSyntaxException {
+        if (endOfInput) {
+            throw new IllegalStateException("End of input was already signalled");
+        }
+        checkLength(len);
+        ensureCapacity(len);
+        System.arraycopy(bytes, offset, buffer, length, len);
+        length += len;
+    }
+
+    public void feed(byte[] bytes) throws JSONSyntaxException {
+        feed(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends the remaining bytes of the buffer, advancing its position.
+     */
+    public void feed(ByteBuffer bytes) throws JSONSyntaxException {
+        if (endOfInput) {
+            throw new IllegalStateException("End of input was already signalled");
+        }
+        int len = bytes.remaining();
+        checkLength(len);
+        ensureCapacity(len);
+        bytes.get(buffer, length, len);
+        length += len;
+    }
+
+    /**
+     * Signals that no more input will follow, so that a trailing top-level number or literal is complete.
+     */
+    public void endOfInput() {
+        endOfInput = true;
+    }
+
+    /**
+     * Returns true if all input was consumed and no further values will follow.
+     */
+    public boolean isFinished() {
+        return endOfInput && !scan();
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private boolean complete(int end) {
+        documentEnd = end;
+        scan = end;
+        return true;
+    }
+
+    /**
+     * Skips string content up to the next quote or backslash, examining eight bytes per step.
+     */
+    private int skipStringContent(int i, int end) {
+        long quotes = SWAR.broadcast(quote);
+        long backslashes = SWAR.broadcast('\\');
+        ByteBuffer words = this.words;
+        while (i + 8 <= end) {
+            long word = words.getLong(i);
+            long mask = SWAR.match(word, quotes) | SWAR.match(word, backslashes);
+            if (mask != 0) {
+                return i + SWAR.firstIndex(mask);
+            }
+            i += 8;
+        }
+        return i;
+    }
+
+    /**
+     * Advances the scanner over the buffered input, returns true if a complete value is available.
+     */
+    private boolean scan() {
+        if (documentEnd >= 0) {
+            return true;
+        }
+        byte[] buf = buffer;
+        int i = scan;
+        int end = length;
+        for (; i < end; i++) {
+            if (inString && !inEscape) {
+                i = skipStringContent(i, end);
+                if (i >= end) {
+                    break;
+                }
+            }
+            int b = buf[i];
+            if (inString) {
+                if (inEscape) {
+                    inEscape = false;
+                } else if (b == '\\') {
+                    inEscape = true;
+                } else if (b == quote) {
+                    inString = false;
+                    if (depth == 0) {
+                        return complete(i + 1);
+                    }
+                }
+            } else if (isWhitespace(b)) {
+                if (!started) {
+                    start = i + 1;
+                } else if (inScalar && depth == 0) {
+                    return complete(i);
+                }
+            } else if (b == '"' || b == '\'') {
+                if (inScalar && depth == 0) {
+                    return complete(i);
+                }
+                started = true;
+                inString = true;
+                quote = b;
+            } else if (b == '{' || b == '[') {
+                if (inScalar && depth == 0) {
+                    return complete(i);
+                }
+                started = true;
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (inScalar && depth == 0) {
+                    return complete(i);
+                }
+                started = true;
+                depth--;
+                if (depth <= 0) {
+                    // unbalanced input is reported by the parser
+                    return complete(i + 1);
+                }
+            } else {
+                started = true;
+                if (depth == 0) {
+                    inScalar = true;
+                }
+            }
+        }
+        scan = i;
+        if (endOfInput && started) {
+            // incomplete values are reported by the parser
+            return complete(length);
+        }
+        return false;
+    }
+
+    private void nextDocument() {
+        start = documentEnd;
+        scan = documentEnd;
+        documentEnd = -1;
+        depth = 0;
+        started = false;
+        inString = false;
+        inEscape = false;
+        inScalar = false;
+    }
+
+    /**
+     * Parses the next complete top-level value, or returns null if more input is needed.
+     */
+    public Object parseNext() throws IOException {
+        if (!scan()) {
+            return null;
+        }
+        parser.reset(buffer, start, documentEnd - start);
+        try {
+            return parser.parse();
+        } finally {
+            nextDocument();
+        }
+    }
+
+    /**
+     * Returns an event parser for the next complete top-level value, or null if more input is needed.
+     * The returned parser is reused and reads from the internal buffer, so it has to be consumed
+     * before more input is fed or the next value is requested.
+     */
+    public JSONEventParser nextEvents() {
+        if (!scan()) {
+            return null;
+        }
+        eventParser.reset(buffer, start, documentEnd - start);
+        nextDocument();
+        return eventParser;
+    }
+}
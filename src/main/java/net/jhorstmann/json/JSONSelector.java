@@ -0,0 +1,273 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.jhorstmann.json.JSONParser.ValueType;
+
+/**
+ * Extracts the values at a set of paths from a document without building the rest of it.
+ * <p>
+ * Paths are either JSON Pointers like {@code /items/0/price} or dotted paths like {@code items[0].price}, in both
+ * forms a segment of {@code *} matches every property of an object and every element of an array. The paths are
+ * compiled once into a tree that is matched against the document while it is parsed; only matching values are
+ * materialized, everything else is skipped with {@link JSONParser#skipValue()}. A selector is immutable and can be
+ * used from several threads.
+ */
+public class JSONSelector {
+
+    public static interface Callback {
+
+        /**
+         * Called for every value matching one of the paths, with the path as given to {@link JSONSelector#compile(String[])}.
+         */
+        public void match(String path, Object value) throws IOException;
+    }
+
+    private static class Node {
+        private Map<String, Node> children;
+        private Node wildcard;
+        private List<String> paths;
+
+        boolean isLeaf() {
+            return children == null && wildcard == null;
+        }
+
+        Node child(String name) {
+            if (children != null) {
+                Node child = children.get(name);
+                if (child != null) {
+                    return child;
+                }
+            }
+            return wildcard;
+        }
+
+        Node child(int index) {
+            return children == null ? wildcard : child(Integer.toString(index));
+        }
+    }
+
+    private final Node root;
+
+    private JSONSelector(Node root) {
+        this.root = root;
+    }
+
+    public static JSONSelector compile(String... paths) {
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            for (String segment : parsePath(path)) {
+                Node next;
+                if ("*".equals(segment)) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node();
+                    }
+                    next = node.wildcard;
+                } else {
+                    if (node.children == null) {
+                        node.children = new HashMap<String, Node>();
+                    }
+                    next = node.children.get(segment);
+                    if (next == null) {
+                        next = new Node();
+                        node.children.put(segment, next);
+                    }
+                }
+                node = next;
+            }
+            if (node.paths == null) {
+                node.paths = new ArrayList<String>();
+            }
+            node.paths.add(path);
+        }
+        return new JSONSelector(normalize(root));
+    }
+
+    static List<String> parsePath(String path) {
+        List<String> segments = new ArrayList<String>();
+        if (path.length() == 0) {
+            return segments;
+        } else if (path.charAt(0) == '/') {
+            int start = 1;
+            while (true) {
+                int end = path.indexOf('/', start);
+                String segment = path.substring(start, end < 0 ? path.length() : end);
+                segments.add(segment.replace("~1", "/").replace("~0", "~"));
+                if (end < 0) {
+                    break;
+                }
+                start = end + 1;
+            }
+            return segments;
+        }
+        int i = path.startsWith("$") ? 1 : 0;
+        StringBuilder sb = new StringBuilder();
+        for (int len = path.length(); i < len; i++) {
+            char ch = path.charAt(i);
+            if (ch == '.' || ch == '[') {
+                if (sb.length() > 0) {
+                    segments.add(sb.toString());
+                    sb.setLength(0);
+                }
+                if (ch == '[') {
+                    int end = path.indexOf(']', i);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated index in path " + path);
+                    }
+                    segments.add(path.substring(i + 1, end));
+                    i = end;
+                }
+            } else {
+                sb.append(ch);
+            }
+        }
+        if (sb.length() > 0) {
+            segments.add(sb.toString());
+        }
+        return segments;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        Node result = new Node();
+        if (a.paths != null || b.paths != null) {
+            result.paths = new ArrayList<String>();
+            if (a.paths != null) {
+                result.paths.addAll(a.paths);
+            }
+            if (b.paths != null) {
+                result.paths.addAll(b.paths);
+            }
+        }
+        if (a.children != null || b.children != null) {
+            result.children = new HashMap<String, Node>();
+            if (a.children != null) {
+                result.children.putAll(a.children);
+            }
+            if (b.children != null) {
+                for (Map.Entry<String, Node> entry : b.children.entrySet()) {
+                    result.children.put(entry.getKey(), merge(result.children.get(entry.getKey()), entry.getValue()));
+                }
+            }
+        }
+        result.wildcard = merge(a.wildcard, b.wildcard);
+        return result;
+    }
+
+    /**
+     * Merges the wildcard subtree into all named children, so that matching only has to follow a single node.
+     */
+    private static Node normalize(Node node) {
+        Node result = new Node();
+        result.paths = node.paths;
+        if (node.wildcard != null) {
+            result.wildcard = normalize(node.wildcard);
+        }
+        if (node.children != null) {
+            result.children = new HashMap<String, Node>();
+            for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+                result.children.put(entry.getKey(), normalize(merge(entry.getValue(), node.wildcard)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses the document and calls the callback for every matching value in document order.
+     */
+    public void select(JSONParser parser, Callback callback) throws IOException {
+        visit(parser, root, callback);
+        int ch = parser.peekToken();
+        if (ch != -1) {
+            throw parser.createSyntaxException(ch, -1);
+        }
+    }
+
+    /**
+     * Parses the document and returns the matching values, grouped by path.
+     */
+    public Map<String, List<Object>> select(JSONParser parser) throws IOException {
+        final Map<String, List<Object>> result = new HashMap<String, List<Object>>();
+        select(parser, new Callback() {
+            public void match(String path, Object value) {
+                List<Object> values = result.get(path);
+                if (values == null) {
+                    values = new ArrayList<Object>();
+                    result.put(path, values);
+                }
+                values.add(value);
+            }
+        });
+        return result;
+    }
+
+    private static void visit(JSONParser parser, final Node node, final Callback callback) throws IOException {
+        if (node.paths != null) {
+            deliver(node, parser.parseValue(), callback);
+        } else if (node.isLeaf()) {
+            parser.skipValue();
+        } else if (parser.isObject()) {
+            parser.parseObject(new JSONParser.AbstractObjectCallback() {
+                public void property(JSONParser parser, String property, ValueType type) throws IOException {
+                    Node child = node.child(property);
+                    if (child == null) {
+                        parser.skipValue();
+                    } else {
+                        visit(parser, child, callback);
+                    }
+                }
+            });
+        } else if (parser.isArray()) {
+            parser.parseArray(new JSONParser.AbstractArrayCallback() {
+                public void item(JSONParser parser, int idx, ValueType type) throws IOException {
+                    Node child = node.child(idx);
+                    if (child == null) {
+                        parser.skipValue();
+                    } else {
+                        visit(parser, child, callback);
+                    }
+                }
+            });
+        } else {
+            parser.skipValue();
+        }
+    }
+
+    /**
+     * Reports a materialized value and any values below it that match longer paths.
+     */
+    private static void deliver(Node node, Object value, Callback callback) throws IOException {
+        if (node.paths != null) {
+            for (String path : node.paths) {
+                callback.match(path, value);
+            }
+        }
+        if (node.isLeaf()) {
+            return;
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                Node child = node.child(String.valueOf(entry.getKey()));
+                if (child != null) {
+                    deliver(child, entry.getValue(), callback);
+                }
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            for (int i = 0, len = list.size(); i < len; i++) {
+                Node child = node.child(i);
+                if (child != null) {
+                    deliver(child, list.get(i), callback);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.jhorstmann.json;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable sequence of property names shared by all objects that were parsed with the same keys in the same order.
+ * <p>
+ * Shapes form a tree of transitions starting at an empty root, each adding one key. The first child of a shape
+ * appends its key to the key array of its parent instead of copying it, so a chain of shapes uses a single array.
+ * Transitions are only added by the parser owning the root and are not thread-safe, the keys and index of an
+ * existing shape never change and can be read concurrently.
+ */
+final class JSONShape {
+    static final int MAX_SIZE = 64;
+    private static final int MAX_SHAPES = 4096;
+
+    final String[] keys;
+    final int      size;
+    private final JSONShape root;
+    private int             shapeCount;
+    private boolean         arrayClaimed;
+    private String          firstKey;
+    private JSONShape       firstChild;
+    private Map<String, JSONShape> transitions;
+    private volatile int[]  index;
+
+    JSONShape() {
+        this.keys = new String[8];
+        this.size = 0;
+        this.root = this;
+        this.shapeCount = 1;
+    }
+
+    private JSONShape(JSONShape root, String[] keys, int size) {
+        this.keys = keys;
+        this.size = size;
+        this.root = root;
+    }
+
+    /**
+     * Returns the shape with the given key appended, or null if the shape tree reached its size limit.
+     */
+    JSONShape transition(String key) {
+        if (firstChild != null && key.equals(firstKey)) {
+            return firstChild;
+        }
+        if (transitions != null) {
+            JSONShape child = transitions.get(key);
+            if (child != null) {
+                return child;
+            }
+        }
+        if (size >= MAX_SIZE || root.shapeCount >= MAX_SHAPES) {
+            return null;
+        }
+        String[] childKeys;
+        if (!arrayClaimed) {
+            arrayClaimed = true;
+            childKeys = keys;
+            if (size == childKeys.length) {
+                childKeys = new String[size * 2];
+                System.arraycopy(keys, 0, childKeys, 0, size);
+            }
+        } else {
+            childKeys = new String[Math.max(size + 1, 8)];
+            System.arraycopy(keys, 0, childKeys, 0, size);
+        }
+        childKeys[size] = key;
+        JSONShape child = new JSONShape(root, childKeys, size + 1);
+        root.shapeCount++;
+        if (firstChild == null) {
+            firstKey = key;
+            firstChild = child;
+        } else {
+            if (transitions == null) {
+                transitions = new HashMap<String, JSONShape>();
+            }
+            transitions.put(key, child);
+        }
+        return child;
+    }
+
+    /**
+     * Returns the hash index of the keys, or null if the shape is small enough to be searched linearly.
+     */
+    int[] getIndex() {
+        if (size <= JSONObject.LINEAR_SEARCH_THRESHOLD) {
+            return null;
+        }
+        int[] result = index;
+        if (result == null) {
+            index = result = JSONObject.buildIndex(keys, size);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,425 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import net.jhorstmann.json.JSONParser.ValueType;
+
+/**
+ * Lazy document model that indexes the structure of a JSON document in a compact tape of longs
+ * and materializes strings and numbers only when they are read.
+ * <p>
+ * Nodes are addressed by their index on the tape, the root of the document is node 0. Every entry holds the
+ * type of the node in the highest byte and a payload in the remaining bits, which is the position of the value
+ * in the input for scalars, and the index following the last descendant for objects and arrays. Containers use
+ * a second entry holding the number of children. Children of an object are stored as alternating key and value
+ * nodes. The input characters are kept by the tape and must not be modified.
+ * <p>
+ * A tape is not modified after it was built, so it can be read from several threads concurrently.
+ */
+public class JSONTape {
+    private static final int  TYPE_SHIFT = 56;
+    private static final long PAYLOAD_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final int  NULL = 1;
+    private static final int  TRUE = 2;
+    private static final int  FALSE = 3;
+    private static final int  NUMBER = 4;
+    private static final int  STRING = 5;
+    private static final int  ARRAY = 6;
+    private static final int  OBJECT = 7;
+
+    private final char[] chars;
+    private final int    end;
+    private long[]       tape;
+    private int          size;
+
+    private JSONTape(char[] chars, int offset, int length) {
+        this.chars = chars;
+        this.end = offset + length;
+        this.tape = new long[64];
+    }
+
+    public static JSONTape parse(char[] chars, int offset, int length) throws IOException {
+        JSONTape result = new JSONTape(chars, offset, length);
+        new Builder(result, chars, offset, length).build();
+        return result;
+    }
+
+    public static JSONTape parse(String str) throws IOException {
+        char[] chars = str.toCharArray();
+        return parse(chars, 0, chars.length);
+    }
+
+    /**
+     * Reads the whole input into memory and indexes it.
+     */
+    public static JSONTape parse(Reader reader) throws IOException {
+        char[] chars = new char[8192];
+        int len = 0;
+        while (true) {
+            if (len == chars.length) {
+                char[] tmp = new char[chars.length * 2];
+                System.arraycopy(chars, 0, tmp, 0, len);
+                chars = tmp;
+            }
+            int n = reader.read(chars, len, chars.length - len);
+            if (n < 0) {
+                break;
+            }
+            len += n;
+        }
+        return parse(chars, 0, len);
+    }
+
+    public static JSONTape parse(byte[] utf8) throws IOException {
+        return parse(new UTF8Reader(utf8, 0, utf8.length));
+    }
+
+    private int append(int type, long payload) {
+        if (size == tape.length) {
+            long[] tmp = new long[size * 2];
+            System.arraycopy(tape, 0, tmp, 0, size);
+            tape = tmp;
+        }
+        tape[size] = ((long)type << TYPE_SHIFT) | payload;
+        return size++;
+    }
+
+    private static class Builder extends AbstractParser {
+        private final JSONTape result;
+        private final int offset;
+
+        Builder(JSONTape result, char[] chars, int offset, int length) {
+            super(chars, offset, length);
+            this.result = result;
+            this.offset = offset;
+        }
+
+        private long position() {
+            return offset + getOffset();
+        }
+
+        void build() throws IOException {
+            buildValue();
+            int ch = peekToken();
+            if (ch != -1) {
+                throw createSyntaxException(ch, -1);
+            }
+        }
+
+        private void buildValue() throws IOException {
+            int ch = peekToken();
+            switch (ch) {
+                case '{':
+                    buildObject();
+                    break;
+                case '[':
+                    buildArray();
+                    break;
+                case '"': case '\'':
+                    result.append(STRING, position());
+                    skipStringImpl(ch);
+                    break;
+                case 'n':
+                    result.append(NULL, position());
+                    consume("null");
+                    break;
+                case 't':
+                    result.append(TRUE, position());
+                    consume("true");
+                    break;
+                case 'f':
+                    result.append(FALSE, position());
+                    consume("false");
+                    break;
+                case '+': case '-':
+                case '0': case '1': case '2': case '3': case '4':
+                case '5': case '6': case '7': case '8': case '9':
+                    result.append(NUMBER, position());
+                    skipNumber(ch);
+                    break;
+                default:
+                    throw createSyntaxException(ch);
+            }
+        }
+
+        private void buildObject() throws IOException {
+            int node = result.append(OBJECT, 0);
+            result.append(0, 0);
+            consume('{');
+            enterContainer();
+            int count = 0;
+            int ch = peekToken();
+            if (ch == '}') {
+                consume();
+            } else {
+                while (true) {
+                    if (ch != '"' && ch != '\'') {
+                        throw createSyntaxException(ch, "quote");
+                    }
+                    result.append(STRING, position());
+                    skipStringImpl(ch);
+                    consumeToken(':');
+                    buildValue();
+                    checkElements(++count);
+                    ch = peekToken();
+                    if (ch == '}') {
+                        consume();
+                        break;
+                    } else if (ch == ',') {
+                        consume();
+                        ch = peekToken();
+                    } else {
+                        throw createSyntaxException(ch, "closing brace or comma");
+                    }
+                }
+            }
+            exitContainer();
+            result.tape[node] |= result.size;
+            result.tape[node + 1] = count;
+        }
+
+        private void buildArray() throws IOException {
+            int node = result.append(ARRAY, 0);
+            result.append(0, 0);
+            consume('[');
+            enterContainer();
+            int count = 0;
+            int ch = peekToken();
+            if (ch == ']') {
+                consume();
+            } else {
+                while (true) {
+                    buildValue();
+                    checkElements(++count);
+                    ch = peekToken();
+                    if (ch == ']') {
+                        consume();
+                        break;
+                    } else if (ch == ',') {
+                        consume();
+                    } else {
+                        throw createSyntaxException(ch, "closing bracket or comma");
+                    }
+                }
+            }
+            exitContainer();
+            result.tape[node] |= result.size;
+            result.tape[node + 1] = count;
+        }
+    }
+
+    private int type(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Invalid node " + node);
+        }
+        return (int)(tape[node] >>> TYPE_SHIFT);
+    }
+
+    private int payload(int node) {
+        return (int)(tape[node] & PAYLOAD_MASK);
+    }
+
+    private int checkType(int node, int type, String name) {
+        if (type(node) != type) {
+            throw new IllegalArgumentException("Node " + node + " is not " + name);
+        }
+        return node;
+    }
+
+    private int checkContainer(int node) {
+        int type = type(node);
+        if (type != OBJECT && type != ARRAY) {
+            throw new IllegalArgumentException("Node " + node + " is not an object or array");
+        }
+        return node;
+    }
+
+    /**
+     * Returns a new parser positioned at the given node. Parsers over a char array do not allocate an input
+     * buffer, and not sharing them keeps reading from the tape thread-safe.
+     */
+    private JSONParser parserAt(int node) {
+        int pos = payload(node);
+        JSONParser parser = new JSONParser("");
+        parser.reset(chars, pos, end - pos);
+        return parser;
+    }
+
+    public int getRoot() {
+        return 0;
+    }
+
+    public ValueType getType(int node) {
+        switch (type(node)) {
+            case NULL:   return ValueType.NULL;
+            case TRUE:
+            case FALSE:  return ValueType.BOOLEAN;
+            case NUMBER: return ValueType.NUMBER;
+            case STRING: return ValueType.STRING;
+            case ARRAY:  return ValueType.ARRAY;
+            default:     return ValueType.OBJECT;
+        }
+    }
+
+    /**
+     * Returns the number of elements of an array or properties of an object.
+     */
+    public int size(int node) {
+        checkContainer(node);
+        return (int)tape[node + 1];
+    }
+
+    /**
+     * Returns the first element of an array or the first key of an object, or -1 if it is empty.
+     */
+    public int firstChild(int node) {
+        return size(node) == 0 ? -1 : node + 2;
+    }
+
+    /**
+     * Returns the node following the given node and all of its descendants, which is the next sibling
+     * if there is one. For the key of an object property this is its value.
+     */
+    public int next(int node) {
+        int type = type(node);
+        return type == OBJECT || type == ARRAY ? payload(node) : node + 1;
+    }
+
+    private boolean keyEquals(int keyNode, String key) {
+        int pos = payload(keyNode);
+        char quote = chars[pos++];
+        for (int i = 0, len = key.length(); i < len; i++, pos++) {
+            char ch = chars[pos];
+            if (ch == '\\') {
+                return key.equals(getString(keyNode));
+            } else if (ch == quote || ch != key.charAt(i)) {
+                return false;
+            }
+        }
+        return chars[pos] == quote;
+    }
+
+    /**
+     * Returns the value node of the property with the given name, or -1 if the object has no such property.
+     */
+    public int get(int object, String key) {
+        checkType(object, OBJECT, "an object");
+        int node = object + 2;
+        for (int i = 0, len = (int)tape[object + 1]; i < len; i++) {
+            if (keyEquals(node, key)) {
+                return node + 1;
+            }
+            node = next(node + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the element node at the given index of an array.
+     */
+    public int get(int array, int index) {
+        checkType(array, ARRAY, "an array");
+        if (index < 0 || index >= (int)tape[array + 1]) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + tape[array + 1]);
+        }
+        int node = array + 2;
+        for (int i = 0; i < index; i++) {
+            node = next(node);
+        }
+        return node;
+    }
+
+    public String getString(int node) {
+        checkType(node, STRING, "a string");
+        try {
+            return parserAt(node).parseString();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading an indexed string failed", ex);
+        }
+    }
+
+    public double getDouble(int node) {
+        checkType(node, NUMBER, "a number");
+        try {
+            return parserAt(node).parseDouble();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading an indexed number failed", ex);
+        }
+    }
+
+    public long getLong(int node) throws ArithmeticException {
+        checkType(node, NUMBER, "a number");
+        try {
+            return parserAt(node).parseLong();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading an indexed number failed", ex);
+        }
+    }
+
+    public int getInt(int node) throws ArithmeticException {
+        checkType(node, NUMBER, "a number");
+        try {
+            return parserAt(node).parseInt();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading an indexed number failed", ex);
+        }
+    }
+
+    public BigDecimal getBigDecimal(int node) {
+        checkType(node, NUMBER, "a number");
+        try {
+            return parserAt(node).parseBigDecimal();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Reading an indexed number failed", ex);
+        }
+    }
+
+    public boolean getBoolean(int node) {
+        int type = type(node);
+        if (type != TRUE && type != FALSE) {
+            throw new IllegalArgumentException("Node " + node + " is not a boolean");
+        }
+        return type == TRUE;
+    }
+
+    public boolean isNull(int node) {
+        return type(node) == NULL;
+    }
+
+    /**
+     * Materializes the given node and all of its descendants like {@link JSONParser#parseValue()}.
+     */
+    public Object getValue(int node) {
+        switch (type(node)) {
+            case NULL:
+                return JSONNull.INSTANCE;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case NUMBER:
+                return Double.valueOf(getDouble(node));
+            case STRING:
+                return getString(node);
+            case ARRAY: {
+                JSONArray result = new JSONArray();
+                int child = node + 2;
+                for (int i = 0, len = (int)tape[node + 1]; i < len; i++) {
+                    result.add(getValue(child));
+                    child = next(child);
+                }
+                return result;
+            }
+            default: {
+                JSONObject result = new JSONObject();
+                int child = node + 2;
+                for (int i = 0, len = (int)tape[node + 1]; i < len; i++) {
+                    result.put(getString(child), getValue(child + 1));
+                    child = next(child + 1);
+                }
+                return result;
+            }
+        }
+    }
+}
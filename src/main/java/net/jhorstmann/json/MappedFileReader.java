@@ -0,0 +1,54 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Decodes UTF-8 from a file by mapping consecutive windows of the file into memory,
+ * so files larger than 2 GB can be read without copying them through heap buffers.
+ */
+class MappedFileReader extends UTF8Reader {
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private long windowStart;
+    private long size = -1;
+
+    MappedFileReader(FileChannel channel, int windowSize) {
+        super(ByteBuffer.allocate(0));
+        this.channel = channel;
+        this.windowSize = windowSize;
+    }
+
+    MappedFileReader(FileChannel channel) {
+        this(channel, WINDOW_SIZE);
+    }
+
+    @Override
+    protected boolean refill() throws IOException {
+        if (size == -1) {
+            windowStart = channel.position();
+            size = channel.size();
+        } else {
+            ByteBuffer window = getBuffer();
+            if (window.position() == 0 && windowStart + window.limit() >= size) {
+                // only a truncated sequence is left at the end of the file, which is replaced by the caller
+                return false;
+            }
+            windowStart += window.position();
+        }
+        if (windowStart >= size) {
+            return false;
+        }
+        long len = Math.min(windowSize, size - windowStart);
+        setBuffer(channel.map(FileChannel.MapMode.READ_ONLY, windowStart, len));
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the channel is owned by the caller
+    }
+}
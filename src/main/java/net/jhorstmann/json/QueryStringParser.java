@@ -3,7 +3,6 @@ package net.jhorstmann.json;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.Map;
 import net.jhorstmann.json.JSONBuilder.ListBuilder;
 import net.jhorstmann.json.JSONBuilder.ObjectBuilder;
@@ -16,7 +15,7 @@ public class QueryStringParser extends AbstractParser {
     }
 
     public QueryStringParser(String s) {
-        super(new StringReader(s));
+        super(s);
     }
 
     public Map parse() throws IOException {
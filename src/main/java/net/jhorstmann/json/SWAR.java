@@ -0,0 +1,39 @@
+package net.jhorstmann.json;
+
+/**
+ * Helpers for examining eight bytes at once in a little-endian long (SIMD within a register).
+ */
+final class SWAR {
+    static final long ONES = 0x0101010101010101L;
+    static final long HIGH_BITS = 0x8080808080808080L;
+
+    private SWAR() {
+    }
+
+    static long broadcast(int b) {
+        return ONES * (b & 0xFF);
+    }
+
+    /**
+     * Returns true if any byte of the word has its high bit set, meaning it is not ASCII.
+     */
+    static boolean hasNonAscii(long word) {
+        return (word & HIGH_BITS) != 0;
+    }
+
+    /**
+     * Returns a mask with the high bit set for bytes equal to the broadcast pattern. Only the lowest set bit is
+     * guaranteed to be exact, bytes above a match may be reported too because of borrows.
+     */
+    static long match(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - ONES) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * Returns the index of the first matching byte of a nonzero mask returned by {@link #match(long, long)}.
+     */
+    static int firstIndex(long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+}
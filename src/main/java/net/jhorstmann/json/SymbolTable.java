@@ -0,0 +1,135 @@
+package net.jhorstmann.json;
+
+/**
+ * Canonicalizes property names while parsing, so that repeated keys share one String instance
+ * and are looked up from the input buffer without allocating.
+ * <p>
+ * A table can be shared by several parsers, but it is not thread-safe, so the parsers have to be used
+ * from the same thread or be synchronized externally. Once the table holds {@code maxSize} entries,
+ * new names are no longer added to prevent unbounded growth on documents with many distinct keys.
+ */
+public class SymbolTable {
+    private static final int DEFAULT_MAX_SIZE = 4096;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSize;
+    private String[] symbols;
+    private int size;
+
+    public SymbolTable(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.symbols = new String[INITIAL_CAPACITY];
+    }
+
+    public SymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        symbols = new String[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        // same as String.hashCode
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    private static boolean matches(String symbol, char[] chars, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the canonical instance for the given characters.
+     */
+    public String lookup(char[] chars, int offset, int length) {
+        int h = hash(chars, offset, length);
+        String[] table = symbols;
+        int mask = table.length - 1;
+        int idx = mix(h) & mask;
+        while (true) {
+            String symbol = table[idx];
+            if (symbol == null) {
+                return add(new String(chars, offset, length), idx);
+            } else if (symbol.hashCode() == h && matches(symbol, chars, offset, length)) {
+                return symbol;
+            }
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the canonical instance for the given string.
+     */
+    public String lookup(String str) {
+        int h = str.hashCode();
+        String[] table = symbols;
+        int mask = table.length - 1;
+        int idx = mix(h) & mask;
+        while (true) {
+            String symbol = table[idx];
+            if (symbol == null) {
+                return add(str, idx);
+            } else if (symbol.hashCode() == h && symbol.equals(str)) {
+                return symbol;
+            }
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    private String add(String symbol, int idx) {
+        if (size >= maxSize) {
+            return symbol;
+        }
+        symbols[idx] = symbol;
+        size++;
+        if (size * 2 > symbols.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        String[] old = symbols;
+        String[] table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < old.length; i++) {
+            String symbol = old[i];
+            if (symbol != null) {
+                int idx = mix(symbol.hashCode()) & mask;
+                while (table[idx] != null) {
+                    idx = (idx + 1) & mask;
+                }
+                table[idx] = symbol;
+            }
+        }
+        symbols = table;
+    }
+}
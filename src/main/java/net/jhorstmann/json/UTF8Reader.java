@@ -0,0 +1,215 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Unsynchronized UTF-8 decoder that decodes directly into the callers buffer.
+ * Malformed input is replaced by U+FFFD like the decoders of the JDK do.
+ */
+class UTF8Reader extends Reader {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private InputStream stream;
+    private ByteBuffer  in;
+    private int         pending = -1;
+
+    UTF8Reader(ByteBuffer in) {
+        this.in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    UTF8Reader(byte[] bytes, int offset, int length) {
+        this(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    UTF8Reader(InputStream stream) {
+        this.stream = stream;
+        this.in = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.in.flip();
+    }
+
+    /**
+     * Makes more bytes available in the current buffer, keeping all unread bytes.
+     * Returns false if the end of input was reached.
+     */
+    protected boolean refill() throws IOException {
+        if (stream == null) {
+            return false;
+        }
+        in.compact();
+        int len;
+        do {
+            len = stream.read(in.array(), in.arrayOffset() + in.position(), in.remaining());
+        } while (len == 0);
+        if (len > 0) {
+            in.position(in.position() + len);
+        }
+        in.flip();
+        return len > 0;
+    }
+
+    protected final ByteBuffer getBuffer() {
+        return in;
+    }
+
+    protected final void setBuffer(ByteBuffer in) {
+        this.in = in.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int i = off;
+        int end = off + len;
+        if (pending != -1) {
+            cbuf[i++] = (char)pending;
+            pending = -1;
+        }
+        while (i < end) {
+            i = decode(cbuf, i, end);
+            if (i == end || i > off) {
+                break;
+            }
+            if (!refill()) {
+                if (in.hasRemaining()) {
+                    // only the valid prefix of a truncated sequence is left, which is replaced as a whole
+                    in.position(in.limit());
+                    cbuf[i++] = REPLACEMENT;
+                    break;
+                }
+                return -1;
+            }
+        }
+        return i - off;
+    }
+
+    private int decode(char[] cbuf, int i, int end) {
+        ByteBuffer in = this.in;
+        int p = in.position();
+        int limit = in.limit();
+        while (i < end && p < limit) {
+            // widen runs of ascii characters eight bytes at a time
+            while (i + 8 <= end && p + 8 <= limit) {
+                long word = in.getLong(p);
+                if (SWAR.hasNonAscii(word)) {
+                    break;
+                }
+                cbuf[i]     = (char)(word & 0x7F);
+                cbuf[i + 1] = (char)((word >>> 8) & 0x7F);
+                cbuf[i + 2] = (char)((word >>> 16) & 0x7F);
+                cbuf[i + 3] = (char)((word >>> 24) & 0x7F);
+                cbuf[i + 4] = (char)((word >>> 32) & 0x7F);
+                cbuf[i + 5] = (char)((word >>> 40) & 0x7F);
+                cbuf[i + 6] = (char)((word >>> 48) & 0x7F);
+                cbuf[i + 7] = (char)(word >>> 56);
+                i += 8;
+                p += 8;
+            }
+            if (i >= end || p >= limit) {
+                break;
+            }
+            int b = in.get(p);
+            if (b >= 0) {
+                cbuf[i++] = (char)b;
+                p++;
+                continue;
+            }
+
+            int lead = b & 0xFF;
+            int n;
+            int cp;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                n = 1;
+                cp = lead & 0x1F;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                n = 2;
+                cp = lead & 0x0F;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                n = 3;
+                cp = lead & 0x07;
+            } else {
+                cbuf[i++] = REPLACEMENT;
+                p++;
+                continue;
+            }
+
+            int available = Math.min(n, limit - p - 1);
+            int malformed = malformedLength(lead, p, available);
+            if (malformed > 0) {
+                cbuf[i++] = REPLACEMENT;
+                p += malformed;
+                continue;
+            }
+            if (available < n) {
+                // incomplete sequence, needs more input
+                break;
+            }
+
+            for (int k = 1; k <= n; k++) {
+                cp = (cp << 6) | (in.get(p + k) & 0x3F);
+            }
+            if (cp >= 0xD800 && cp <= 0xDFFF) {
+                cbuf[i++] = REPLACEMENT;
+                p += n + 1;
+                continue;
+            }
+
+            p += n + 1;
+            if (cp < 0x10000) {
+                cbuf[i++] = (char)cp;
+            } else {
+                cp -= 0x10000;
+                cbuf[i++] = (char)(0xD800 | (cp >>> 10));
+                char low = (char)(0xDC00 | (cp & 0x3FF));
+                if (i < end) {
+                    cbuf[i++] = low;
+                } else {
+                    pending = low;
+                }
+            }
+        }
+        in.position(p);
+        return i;
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * Checks the first {@code available} continuation bytes of a sequence starting with the given lead byte,
+     * returns the number of bytes to replace if they are malformed or 0 if they are a valid prefix.
+     * This follows the decoder of the JDK, which replaces the lead byte alone if the second byte is invalid,
+     * and the bytes up to the first invalid one otherwise.
+     */
+    private int malformedLength(int lead, int p, int available) {
+        if (available >= 1) {
+            int b2 = in.get(p + 1) & 0xFF;
+            if (!isContinuation(b2)
+                    || (lead == 0xE0 && b2 < 0xA0)
+                    || (lead == 0xF0 && b2 < 0x90)
+                    || (lead == 0xF4 && b2 > 0x8F)) {
+                return 1;
+            }
+        }
+        for (int k = 2; k <= available; k++) {
+            if (!isContinuation(in.get(p + k))) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
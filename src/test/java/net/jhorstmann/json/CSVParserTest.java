@@ -1,6 +1,9 @@
 package net.jhorstmann.json;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import static java.util.Arrays.*;
@@ -37,4 +40,29 @@ public class CSVParserTest {
         assertEquals(asList(asList("abc", "def", "ghi")), new CSVParser(csv).parseLines(false));
     }
 
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = File.createTempFile("jjson", ".csv");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("abc,d\u00e9f\nghi,jkl\n".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            assertEquals(asList(asList("abc", "d\u00e9f"), asList("ghi", "jkl")), new CSVParser(raf.getChannel()).parseLines(false));
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        CSVParser parser = new CSVParser("abc;def", ';', false);
+        assertEquals(asList(asList("abc", "def")), parser.parseLines(false));
+        parser.reset("ghi;jkl");
+        assertEquals(asList(asList("ghi", "jkl")), parser.parseLines(false));
+    }
 }
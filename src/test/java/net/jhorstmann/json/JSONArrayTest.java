@@ -1,5 +1,9 @@
 package net.jhorstmann.json;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import static junit.framework.Assert.*;
 import org.junit.Test;
 
@@ -28,4 +32,94 @@ public class JSONArrayTest {
         assertEquals("[1.0,\"abc\"]", arr.toString());
     }
 
+    @Test
+    public void testPrimitiveDoubles() {
+        JSONArray arr = new JSONArray();
+        for (int i = 0; i < 100; i++) {
+            arr.addDouble(i * 0.5);
+        }
+        assertEquals(100, arr.size());
+        assertEquals(Double.valueOf(2.5), arr.get(5));
+        assertEquals(2.5, arr.getDouble(5));
+        assertEquals(2, arr.getInt(5));
+        arr.add(3, Double.valueOf(-1.0));
+        arr.remove(0);
+        assertEquals(Double.valueOf(-1.0), arr.get(2));
+        JSONIterator iter = arr.jsonIterator();
+        assertEquals(0.5, iter.nextDouble());
+        assertEquals(1.0, iter.nextDouble());
+        assertEquals(-1.0, iter.nextDouble());
+        iter.remove();
+        assertEquals(1.5, iter.nextDouble());
+        assertEquals(99, arr.size());
+    }
+
+    @Test
+    public void testMixedElementsGeneralize() {
+        JSONArray arr = new JSONArray();
+        arr.addLong(1);
+        arr.addLong(2);
+        arr.add("x");
+        arr.addDouble(3.0);
+        assertEquals(Arrays.asList(Long.valueOf(1), Long.valueOf(2), "x", Double.valueOf(3.0)), arr);
+        assertEquals(2L, arr.getLong(1));
+
+        arr = new JSONArray();
+        arr.addBoolean(true);
+        arr.set(0, "y");
+        assertEquals(Arrays.asList("y"), arr);
+    }
+
+    @Test
+    public void testParsedArrays() throws IOException {
+        JSONArray arr = new JSONParser("[1, 2.5, -3e2]").parseArray();
+        assertEquals(Arrays.asList(1.0, 2.5, -300.0), arr);
+        assertEquals(-300.0, arr.getDouble(2));
+
+        arr = new JSONParser("[true, false]").parseArray();
+        assertEquals(Arrays.asList(true, false), arr);
+        assertFalse(arr.getBoolean(1));
+
+        arr = new JSONParser("[1, \"a\", true, null, [2]]").parseArray();
+        assertEquals("[1.0,\"a\",true,null,[2.0]]", arr.toString());
+    }
+
+    @Test
+    public void testCloneAndIteratorConsistency() {
+        JSONArray arr = new JSONArray();
+        arr.addDouble(1.0);
+        arr.addDouble(2.0);
+        JSONArray copy = arr.clone();
+        copy.set(0, 5.0);
+        assertEquals(1.0, arr.getDouble(0));
+        Iterator it = arr.iterator();
+        it.next();
+        arr.addDouble(3.0);
+        try {
+            it.next();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException ex) {
+        }
+    }
+
+    @Test
+    public void testIteratorFieldSharesCursor() {
+        JSONArray arr = new JSONArray();
+        arr.addDouble(1.0);
+        arr.addDouble(2.0);
+        arr.addDouble(3.0);
+        JSONIterator iter = new JSONIterator(arr) {
+            @Override
+            public Object next() {
+                return iter.next();
+            }
+        };
+        assertEquals(Double.valueOf(1.0), iter.next());
+        assertEquals(2.0, iter.nextDouble());
+        iter.remove();
+        assertTrue(iter.hasNext());
+        assertEquals(Double.valueOf(3.0), iter.next());
+        assertFalse(iter.hasNext());
+        assertEquals(Arrays.asList(1.0, 3.0), arr);
+    }
 }
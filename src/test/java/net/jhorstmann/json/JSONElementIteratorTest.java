@@ -0,0 +1,143 @@
+package net.jhorstmann.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.jhorstmann.json.JSONParser.ValueType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONElementIteratorTest {
+
+    private static List<Object> collect(JSONElementIterator iterator) {
+        List<Object> result = new ArrayList<Object>();
+        for (Object value : iterator) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Test
+    public void testTopLevelArray() throws IOException {
+        JSONElementIterator iterator = new JSONElementIterator(new JSONParser("[1, \"a\", {\"b\": [true]}, null]"));
+        List<Object> values = collect(iterator);
+        assertEquals(4, values.size());
+        assertEquals(1.0, values.get(0));
+        assertEquals("a", values.get(1));
+        assertEquals(new JSONParser("{\"b\": [true]}").parse(), values.get(2));
+        assertEquals(JSONNull.INSTANCE, values.get(3));
+        assertEquals(4, iterator.getIndex());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testEmptyArray() throws IOException {
+        assertEquals(0, collect(new JSONElementIterator(new JSONParser(" [ ] "))).size());
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"id\": ").append(i).append("}");
+        }
+        sb.append("]");
+        JSONElementIterator iterator = new JSONElementIterator(new JSONParser(new ByteArrayInputStream(sb.toString().getBytes("UTF-8"))));
+        int count = 0;
+        while (iterator.hasNext()) {
+            JSONObject obj = (JSONObject)iterator.next();
+            assertEquals((double)count, obj.get("id"));
+            count++;
+        }
+        assertEquals(10000, count);
+    }
+
+    @Test
+    public void testPath() throws IOException {
+        String json = "{\"meta\": {\"items\": [0]}, \"data\": [{}, {\"items\": [1, 2, 3]}], \"after\": 1}";
+        assertEquals(Arrays.asList(1.0, 2.0, 3.0), collect(new JSONElementIterator(new JSONParser(json), "/data/1/items")));
+        assertEquals(Arrays.asList(1.0, 2.0, 3.0), collect(new JSONElementIterator(new JSONParser(json), "data[1].items")));
+        assertEquals(Arrays.asList(0.0), collect(new JSONElementIterator(new JSONParser(json), "meta.items")));
+    }
+
+    @Test
+    public void testMissingPath() throws IOException {
+        String json = "{\"data\": [{\"items\": 1}]}";
+        assertFalse(new JSONElementIterator(new JSONParser(json), "/data/0/items").hasNext());
+        assertFalse(new JSONElementIterator(new JSONParser(json), "/data/1/items").hasNext());
+        assertFalse(new JSONElementIterator(new JSONParser(json), "/other").hasNext());
+        assertFalse(new JSONElementIterator(new JSONParser(json), "/data/x").hasNext());
+    }
+
+    @Test
+    public void testParserReusedAfterPath() throws IOException {
+        JSONParser parser = new JSONParser("{\"a\": {\"b\": [[1], [2]]}} [[[[3]]]]");
+        parser.setMaxDepth(4);
+        assertEquals(2, collect(new JSONElementIterator(parser, "a.b")).size());
+        parser.consumeToken('}');
+        parser.consumeToken('}');
+        assertEquals(new JSONParser("[[[[3]]]]").parse(), parser.parseNext());
+
+        parser = new JSONParser("[1, 2] {\"x\": [[[3]]]}");
+        parser.setMaxDepth(4);
+        assertFalse(new JSONElementIterator(parser, "/5").hasNext());
+        assertEquals(new JSONParser("{\"x\": [[[3]]]}").parse(), parser.parse());
+
+        parser = new JSONParser("{\"a\": {\"b\": 1}} [[[[3]]]]");
+        parser.setMaxDepth(4);
+        assertFalse(new JSONElementIterator(parser, "a.b").hasNext());
+        parser.skipValue();
+        parser.consumeToken('}');
+        parser.consumeToken('}');
+        assertEquals(new JSONParser("[[[[3]]]]").parse(), parser.parse());
+    }
+
+    @Test
+    public void testLenientPath() throws IOException {
+        JSONParser parser = new JSONParser("{skip: {a: 1}; data => [1, 2]}");
+        parser.setLenient(true);
+        assertEquals(Arrays.asList(1.0, 2.0), collect(new JSONElementIterator(parser, "data")));
+    }
+
+    @Test
+    public void testTypesAndSkip() throws IOException {
+        JSONElementIterator iterator = new JSONElementIterator(new JSONParser("[{\"large\": [1, 2, 3]}, \"x\"]"));
+        assertEquals(ValueType.OBJECT, iterator.nextType());
+        assertEquals(ValueType.OBJECT, iterator.nextType());
+        iterator.skip();
+        assertEquals(ValueType.STRING, iterator.nextType());
+        assertEquals("x", iterator.nextValue());
+        assertNull(iterator.nextType());
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testTrailingGarbage() throws IOException {
+        JSONElementIterator iterator = new JSONElementIterator(new JSONParser("[1] 2"));
+        iterator.nextValue();
+        iterator.nextType();
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testNotAnArray() throws IOException {
+        new JSONElementIterator(new JSONParser("{}")).nextType();
+    }
+
+    @Test
+    public void testErrorWrappedByIterator() {
+        JSONElementIterator iterator = new JSONElementIterator(new JSONParser("[1 2]"));
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Expected " + IllegalStateException.class.getName());
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getCause() instanceof JSONSyntaxException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWildcard() {
+        new JSONElementIterator(new JSONParser("[]"), "/items/*");
+    }
+}
@@ -306,4 +306,125 @@ public class JSONEventParserTest {
         } catch (JSONSyntaxException ex) {
         }
     }
+
+    @Test
+    public void testReset() throws IOException {
+        JSONEventParser parser = new JSONEventParser("{\"a\": [1");
+        Assert.assertEquals(EventType.START_OBJECT, parser.nextEvent());
+        Assert.assertEquals(EventType.PROPERTY, parser.nextEvent());
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        parser.reset("{}");
+        Assert.assertEquals(EventType.START_OBJECT, parser.nextEvent());
+        Assert.assertEquals(EventType.END_OBJECT, parser.nextEvent());
+        Assert.assertFalse(parser.hasNextEvent());
+    }
+
+    @Test
+    public void testNestedContainers() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[[], {}, [{\"a\": 1}]]");
+        EventType[] expected = {EventType.START_ARRAY, EventType.START_ARRAY, EventType.END_ARRAY, EventType.START_OBJECT, EventType.END_OBJECT,
+            EventType.START_ARRAY, EventType.START_OBJECT, EventType.PROPERTY, EventType.VALUE_NUMBER, EventType.END_OBJECT, EventType.END_ARRAY, EventType.END_ARRAY};
+        for (EventType event : expected) {
+            Assert.assertEquals(event, parser.nextEvent());
+        }
+        Assert.assertFalse(parser.hasNextEvent());
+    }
+
+    @Test
+    public void testSkipChildren() throws IOException {
+        JSONEventParser parser = new JSONEventParser("{\"skip\": {\"a\": [1, \"x\", {\"b\": null}], \"c\": true}, \"keep\": \"y\"}");
+        Assert.assertEquals(EventType.START_OBJECT, parser.nextEvent());
+        Assert.assertEquals(EventType.PROPERTY, parser.nextEvent());
+        Assert.assertEquals("skip", parser.getString());
+        Assert.assertEquals(EventType.START_OBJECT, parser.nextEvent());
+        parser.skipChildren();
+        Assert.assertEquals(EventType.PROPERTY, parser.nextEvent());
+        Assert.assertEquals("keep", parser.getString());
+        Assert.assertEquals(EventType.VALUE_STRING, parser.nextEvent());
+        Assert.assertEquals("y", parser.getString());
+        parser.skipChildren();
+        Assert.assertEquals(EventType.END_OBJECT, parser.nextEvent());
+        Assert.assertFalse(parser.hasNextEvent());
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testSkipChildrenValidates() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[[1, \"a\\x\"], 2]");
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        parser.skipChildren();
+    }
+
+    @Test
+    public void testStringSlices() throws IOException {
+        JSONEventParser parser = new JSONEventParser("{\"key\": \"value\"}");
+        parser.setStringSlices(true);
+        Assert.assertEquals(EventType.START_OBJECT, parser.nextEvent());
+        Assert.assertEquals(EventType.PROPERTY, parser.nextEvent());
+        Assert.assertTrue(parser.getCharSequence() instanceof String);
+        Assert.assertEquals(EventType.VALUE_STRING, parser.nextEvent());
+        Assert.assertTrue(parser.getCharSequence() instanceof CharSlice);
+        Assert.assertTrue("value".contentEquals(parser.getCharSequence()));
+        Assert.assertEquals("value", parser.getString());
+    }
+
+    @Test
+    public void testMultipleDocuments() throws IOException {
+        JSONEventParser parser = new JSONEventParser("{\"a\": [1]}[] 2 \"x\"");
+        parser.setMultipleDocuments(true);
+        EventType[] expected = {EventType.START_OBJECT, EventType.PROPERTY, EventType.START_ARRAY, EventType.VALUE_NUMBER,
+            EventType.END_ARRAY, EventType.END_OBJECT, EventType.START_ARRAY, EventType.END_ARRAY, EventType.VALUE_NUMBER,
+            EventType.VALUE_STRING};
+        int documents = 0;
+        for (EventType type : expected) {
+            Assert.assertEquals(type, parser.nextEvent());
+            if (parser.getDepth() == 0) {
+                documents++;
+            }
+        }
+        Assert.assertEquals(4, documents);
+        Assert.assertFalse(parser.hasNextEvent());
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testSingleDocumentByDefault() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[] []");
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        Assert.assertEquals(EventType.END_ARRAY, parser.nextEvent());
+        parser.nextEvent();
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testMultipleDocumentsRejectComma() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[], []");
+        parser.setMultipleDocuments(true);
+        parser.nextEvent();
+        parser.nextEvent();
+        parser.nextEvent();
+    }
+
+    @Test
+    public void testLimits() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[[[]]]");
+        parser.setMaxDepth(2);
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        Assert.assertEquals(EventType.START_ARRAY, parser.nextEvent());
+        try {
+            parser.nextEvent();
+            Assert.fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("Nesting exceeds"));
+        }
+
+        parser = new JSONEventParser("[[1, 2], 3, 4]");
+        parser.setMaxElements(2);
+        try {
+            while (parser.hasNextEvent()) {
+                parser.nextEvent();
+            }
+            Assert.fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("Container exceeds"));
+        }
+    }
 }
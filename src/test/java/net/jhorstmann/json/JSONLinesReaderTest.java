@@ -0,0 +1,165 @@
+package net.jhorstmann.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONLinesReaderTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static ByteArrayInputStream stream(String str) throws IOException {
+        return new ByteArrayInputStream(str.getBytes("UTF-8"));
+    }
+
+    private static String createLines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0: sb.append("{\"id\": ").append(i).append(", \"name\": \"ä").append(i).append("\"}\n"); break;
+                case 1: sb.append("[").append(i).append(", true]\r\n"); break;
+                default: sb.append(i).append('\n'); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Collector implements JSONLinesReader.Callback {
+        final List<Long> lines = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Object> values = Collections.synchronizedList(new ArrayList<Object>());
+        final List<Long> errors = Collections.synchronizedList(new ArrayList<Long>());
+
+        public void value(long line, Object value) {
+            lines.add(line);
+            values.add(value);
+        }
+
+        public void error(long line, JSONSyntaxException ex) {
+            errors.add(line);
+        }
+    }
+
+    @Test
+    public void testSequential() throws IOException {
+        List<Object> values = new JSONLinesReader(stream("{\"a\": 1}\n\n  \n[2]\r\n\"x\"")).readAll();
+        assertEquals(3, values.size());
+        assertEquals(new JSONParser("{\"a\": 1}").parse(), values.get(0));
+        assertEquals(Arrays.asList(2.0), values.get(1));
+        assertEquals("x", values.get(2));
+    }
+
+    @Test
+    public void testOrderedSameAsSequential() throws IOException {
+        String json = createLines(10000);
+        List<Object> expected = new JSONLinesReader(stream(json)).readAll();
+        assertEquals(10000, expected.size());
+
+        JSONLinesReader reader = new JSONLinesReader(stream(json), executor, 4);
+        reader.setBlockSize(4096);
+        Collector collector = new Collector();
+        reader.read(collector);
+        assertEquals(expected, collector.values);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Long.valueOf(i + 1), collector.lines.get(i));
+        }
+    }
+
+    @Test
+    public void testUnordered() throws IOException {
+        String json = createLines(10000);
+        JSONLinesReader reader = new JSONLinesReader(stream(json), executor, 4);
+        reader.setBlockSize(1000);
+        reader.setOrdered(false);
+        Collector collector = new Collector();
+        reader.read(collector);
+        assertEquals(10000, collector.values.size());
+        List<Long> lines = new ArrayList<Long>(collector.lines);
+        Collections.sort(lines);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Long.valueOf(i + 1), lines.get(i));
+        }
+    }
+
+    @Test
+    public void testLinesLongerThanBlock() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i == 0 ? "" : ",").append(i);
+        }
+        sb.append("]\n[1]\n");
+        JSONLinesReader reader = new JSONLinesReader(stream(sb.toString()), executor, 2);
+        reader.setBlockSize(16);
+        List<Object> values = reader.readAll();
+        assertEquals(2, values.size());
+        assertEquals(1000, ((JSONArray)values.get(0)).size());
+    }
+
+    @Test
+    public void testErrorsArePerLine() throws IOException {
+        JSONLinesReader reader = new JSONLinesReader(stream("[1]\n{x\n2\n[3] 4\n5"), executor, 2);
+        reader.setBlockSize(4);
+        Collector collector = new Collector();
+        reader.read(collector);
+        assertEquals(Arrays.asList(1L, 3L, 5L), collector.lines);
+        assertEquals(Arrays.asList(2L, 4L), collector.errors);
+    }
+
+    @Test
+    public void testReadAllReportsLine() throws IOException {
+        try {
+            new JSONLinesReader(stream("1\n2\n[\n")).readAll();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 3: "));
+        }
+    }
+
+    @Test
+    public void testLimitsApplyPerLine() throws IOException {
+        JSONLinesReader reader = new JSONLinesReader(stream("[1, 2]\n[[1]]\n[1, 2, 3]\n\"abcdef\"\n"), executor, 2);
+        reader.setMaxDepth(1);
+        reader.setMaxElements(2);
+        reader.setMaxStringLength(5);
+        reader.setMaxDocumentLength(9);
+        Collector collector = new Collector();
+        reader.read(collector);
+        assertEquals(Arrays.asList(1L), collector.lines);
+        assertEquals(Arrays.asList(2L, 3L, 4L), collector.errors);
+    }
+
+    @Test
+    public void testLongLineFailsWithoutBuffering() throws IOException {
+        StringBuilder sb = new StringBuilder("1\n\"");
+        for (int i = 0; i < 100000; i++) {
+            sb.append('x');
+        }
+        sb.append("\"\n");
+        JSONLinesReader reader = new JSONLinesReader(stream(sb.toString()));
+        reader.setBlockSize(1024);
+        reader.setMaxDocumentLength(1000);
+        try {
+            reader.read(new Collector());
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 2 exceeds"));
+        }
+    }
+}
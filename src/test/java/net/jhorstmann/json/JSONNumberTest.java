@@ -0,0 +1,102 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONNumberTest {
+
+    @Test
+    public void testWrittenVerbatim() throws IOException {
+        String json = "{\"a\":[1.50,-0.0,1E+2,12345678901234567890123.4567890123456789,1e-400]}";
+        JSONParser parser = new JSONParser(json);
+        parser.setLazyNumbers(true);
+        Map map = (Map)parser.parse();
+        assertTrue(((List)map.get("a")).get(0) instanceof JSONNumber);
+        assertEquals(json, JSONUtils.format(map));
+    }
+
+    @Test
+    public void testConversions() {
+        JSONNumber n = JSONNumber.valueOf("-123");
+        assertTrue(n.isIntegral());
+        assertEquals(-123, n.intValue());
+        assertEquals(-123L, n.longValue());
+        assertEquals(-123.0, n.doubleValue(), 0.0);
+        assertEquals(BigInteger.valueOf(-123), n.bigIntegerValue());
+
+        n = JSONNumber.valueOf("2.5e3");
+        assertFalse(n.isIntegral());
+        assertEquals(2500L, n.longValue());
+        assertEquals(2500.0, n.doubleValue(), 0.0);
+        assertEquals(new BigDecimal("2.5e3"), n.bigDecimalValue());
+
+        n = JSONNumber.valueOf("0.1");
+        assertEquals(0.1, n.doubleValue(), 0.0);
+        assertEquals(0.1f, n.floatValue(), 0.0f);
+        assertEquals(new BigDecimal("0.1"), n.bigDecimalValue());
+
+        n = JSONNumber.valueOf("-0.0");
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(n.doubleValue()));
+    }
+
+    @Test
+    public void testPrecisionIsKept() {
+        String digits = "3.14159265358979323846264338327950288419716939937510";
+        JSONNumber n = JSONNumber.valueOf(digits);
+        assertEquals(new BigDecimal(digits), n.bigDecimalValue());
+        assertEquals(Math.PI, n.doubleValue(), 0.0);
+        assertEquals(new BigInteger("123456789012345678901234567890"), JSONNumber.valueOf("123456789012345678901234567890").bigIntegerValue());
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(JSONNumber.valueOf("1.0"), JSONNumber.valueOf("1"));
+        assertEquals(JSONNumber.valueOf("1.0").hashCode(), JSONNumber.valueOf("1").hashCode());
+        assertEquals(JSONNumber.valueOf("100"), JSONNumber.valueOf("1e2"));
+        assertFalse(JSONNumber.valueOf("1").equals(JSONNumber.valueOf("2")));
+        assertEquals(JSONNumber.valueOf("0.5"), JSONNumber.valueOf("5000000000000000000000e-22"));
+        assertEquals(JSONNumber.valueOf("0.5").hashCode(), JSONNumber.valueOf("5000000000000000000000e-22").hashCode());
+        assertEquals(JSONNumber.valueOf("0").hashCode(), JSONNumber.valueOf("-0.0e10").hashCode());
+    }
+
+    @Test
+    public void testEqualsBeyondBigDecimalRange() {
+        JSONNumber huge = JSONNumber.valueOf("1e99999999999");
+        assertEquals(huge, JSONNumber.valueOf("10e99999999998"));
+        assertEquals(huge.hashCode(), JSONNumber.valueOf("10e99999999998").hashCode());
+        assertFalse(huge.equals(JSONNumber.valueOf("1e99999999998")));
+        assertFalse(huge.equals(JSONNumber.valueOf("1")));
+        Set<JSONNumber> set = new HashSet<JSONNumber>();
+        set.add(huge);
+        set.add(JSONNumber.valueOf("1e-99999999999"));
+        assertTrue(set.contains(JSONNumber.valueOf("1.0E+99999999999")));
+        assertEquals(Double.POSITIVE_INFINITY, huge.doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testPlusSignIsDropped() {
+        assertEquals("1", JSONNumber.valueOf("+1").toString());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalid() {
+        JSONNumber.valueOf("1.2.3");
+    }
+
+    @Test
+    public void testEventParser() throws IOException {
+        JSONEventParser parser = new JSONEventParser("[0.30000000000000004]");
+        parser.setLazyNumbers(true);
+        assertEquals(JSONEventParser.EventType.START_ARRAY, parser.nextEvent());
+        assertEquals(JSONEventParser.EventType.VALUE_NUMBER, parser.nextEvent());
+        assertEquals("0.30000000000000004", parser.getNumberValue().toString());
+        assertEquals(Double.valueOf(0.30000000000000004), parser.getNumber());
+    }
+}
@@ -1,8 +1,17 @@
 package net.jhorstmann.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.SimpleTimeZone;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -37,4 +46,160 @@ public class JSONObjectTest {
         json.put("b", "xyz");
         assertEquals("{\"a\":1.0,\"b\":\"xyz\"}", json.toString());
     }
+
+    @Test
+    public void testBehavesLikeLinkedHashMap() {
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 40; i++) {
+            String key = "k" + (i * 7 % 23);
+            assertEquals(expected.put(key, i), json.put(key, i));
+            if (i % 5 == 4) {
+                String removed = "k" + (i % 11);
+                assertEquals(expected.remove(removed), json.remove(removed));
+            }
+            assertEquals(expected, json);
+            assertEquals(json, expected);
+            assertEquals(expected.hashCode(), json.hashCode());
+        }
+        for (String key : expected.keySet()) {
+            assertTrue(json.containsKey(key));
+            assertEquals(expected.get(key), json.get(key));
+        }
+        assertFalse(json.containsKey("missing"));
+        assertNull(json.get("missing"));
+    }
+
+    @Test
+    public void testInsertionOrderAndOverwrite() {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 20; i++) {
+            json.put("key" + (19 - i), i);
+        }
+        json.put("key10", "x");
+        Iterator<String> it = json.keySet().iterator();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("key" + (19 - i), it.next());
+        }
+        assertFalse(it.hasNext());
+        assertEquals("x", json.get("key10"));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < 12; i++) {
+            json.put("k" + i, i);
+        }
+        for (Iterator<Map.Entry<String, Object>> it = json.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            if ((Integer)entry.getValue() % 2 == 0) {
+                it.remove();
+            } else {
+                entry.setValue(-(Integer)entry.getValue());
+            }
+        }
+        assertEquals(6, json.size());
+        assertEquals(-11, json.get("k11"));
+        assertFalse(json.containsKey("k10"));
+    }
+
+    @Test
+    public void testNullKeyAndClone() {
+        JSONObject json = new JSONObject();
+        json.put(null, "a");
+        json.put("b", null);
+        assertTrue(json.containsKey(null));
+        assertTrue(json.containsKey("b"));
+        assertEquals("a", json.get(null));
+
+        JSONObject copy = json.clone();
+        copy.put("c", 1);
+        assertEquals(2, json.size());
+        assertEquals(3, copy.size());
+        assertEquals(copy, new JSONObject(copy));
+    }
+
+    @Test
+    public void testParsedObjectsShareShape() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5; i++) {
+            sb.append(i == 0 ? "" : ",").append("{");
+            for (int j = 0; j < 12; j++) {
+                sb.append(j == 0 ? "" : ",").append("\"k").append(j).append("\":").append(i * j);
+            }
+            sb.append("}");
+        }
+        sb.append(",{\"k0\":1,\"k2\":2},{\"k0\":1,\"k0\":2}]");
+        List<JSONObject> list = (List<JSONObject>)new JSONParser(sb.toString()).parse();
+        JSONObject first = list.get(0);
+        JSONObject second = list.get(1);
+        assertNotNull(first.getShape());
+        assertSame(first.getShape(), second.getShape());
+        assertEquals(44.0, list.get(4).get("k11"));
+        assertNotSame(first.getShape(), list.get(5).getShape());
+        assertEquals(2.0, list.get(5).get("k2"));
+        assertEquals(1, list.get(6).size());
+        assertEquals(2.0, list.get(6).get("k0"));
+
+        second.put("extra", true);
+        second.remove("k3");
+        assertNull(second.getShape());
+        assertEquals(12, second.size());
+        assertEquals(12, first.size());
+        assertTrue(first.containsKey("k3"));
+        assertFalse(first.containsKey("extra"));
+        assertSame(first.getShape(), list.get(2).getShape());
+
+        first.put("k5", "changed");
+        assertSame(first.getShape(), list.get(2).getShape());
+        assertEquals(10.0, list.get(2).get("k5"));
+    }
+
+    @Test
+    public void testCSVObjectsShareShape() throws IOException {
+        List<JSONObject> list = new CSVParser("a,b\n1,2\n3,4\n").parseObjects();
+        assertEquals(2, list.size());
+        assertSame(list.get(0).getShape(), list.get(1).getShape());
+        assertEquals("4", list.get(1).get("b").toString());
+    }
+
+    @Test
+    public void testSerializeSharedObjects() throws Exception {
+        List<JSONObject> list = (List<JSONObject>)new JSONParser("[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]").parse();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(list.get(0));
+        out.writeObject(list.get(1));
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        JSONObject first = (JSONObject)in.readObject();
+        JSONObject second = (JSONObject)in.readObject();
+        first.put("c", 5);
+        assertEquals(list.get(0).size() + 1, first.size());
+        assertEquals(list.get(1), second);
+    }
+
+    private static void assertGrows(JSONObject obj, int initialSize) {
+        for (int i = initialSize; i < 20; i++) {
+            obj.put("k" + i, i);
+        }
+        assertEquals(20, obj.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, obj.get("k" + i));
+        }
+    }
+
+    @Test
+    public void testGrowFromSmallCapacity() {
+        for (int capacity = 0; capacity <= 2; capacity++) {
+            assertGrows(new JSONObject(capacity), 0);
+
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < capacity; i++) {
+                map.put("k" + i, i);
+            }
+            assertGrows(new JSONObject(map), capacity);
+        }
+    }
 }
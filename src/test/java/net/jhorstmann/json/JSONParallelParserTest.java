@@ -0,0 +1,156 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import net.jhorstmann.json.JSONParser.ValueType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONParallelParserTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static String createDocument(int count) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(" ,\n ");
+            }
+            switch (i % 5) {
+                case 0: sb.append(i); break;
+                case 1: sb.append("\"s,]\\\"[ ").append(i).append("ä\""); break;
+                case 2: sb.append("{\"a\": [").append(i).append(", {\"b\": \"}\"}], \"c\": null}"); break;
+                case 3: sb.append("[true, 'x]', []]"); break;
+                default: sb.append("{}"); break;
+            }
+        }
+        sb.append("\n]\n");
+        return sb.toString();
+    }
+
+    @Test
+    public void testScanElements() throws IOException {
+        byte[] bytes = " [1, \"a,]\", [2, 3], {\"k\": \"]\"}] ".getBytes("UTF-8");
+        assertArrayEquals(new int[]{1, 3, 10, 18, 30}, JSONParallelParser.scanElements(bytes, 0, bytes.length));
+        bytes = "[] ".getBytes("UTF-8");
+        assertNull(JSONParallelParser.scanElements(bytes, 0, bytes.length));
+        bytes = "[1] 2".getBytes("UTF-8");
+        assertNull(JSONParallelParser.scanElements(bytes, 0, bytes.length));
+        bytes = "{\"a\": [1]}".getBytes("UTF-8");
+        assertNull(JSONParallelParser.scanElements(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testSameResultAsSequentialParser() throws IOException {
+        String json = createDocument(20000);
+        JSONParallelParser parser = new JSONParallelParser(executor);
+        parser.setLenient(true);
+        JSONArray expected = new JSONParser(json).parseArray();
+        assertEquals(expected, parser.parseArray(json));
+        assertEquals(Arrays.asList(1.0, 2.0), new JSONParallelParser(executor).parseArray("[1, 2]"));
+    }
+
+    @Test
+    public void testCallbackWithIndex() throws IOException {
+        String json = createDocument(10000);
+        final AtomicReferenceArray<ValueType> types = new AtomicReferenceArray<ValueType>(10000);
+        byte[] bytes = json.getBytes("UTF-8");
+        new JSONParallelParser(executor, 8).parseArray(bytes, 0, bytes.length, new JSONParser.AbstractArrayCallback() {
+            public void item(JSONParser parser, int idx, ValueType type) throws IOException {
+                assertNull(types.getAndSet(idx, type));
+                parser.skipValue();
+            }
+        });
+        for (int i = 0; i < 10000; i++) {
+            assertNotNull(types.get(i));
+        }
+        assertEquals(ValueType.NUMBER, types.get(0));
+        assertEquals(ValueType.STRING, types.get(1));
+        assertEquals(ValueType.OBJECT, types.get(2));
+        assertEquals(ValueType.ARRAY, types.get(3));
+    }
+
+    @Test
+    public void testSyntaxErrorReportsDocumentPosition() throws IOException {
+        String json = createDocument(20000);
+        int pos = json.indexOf("12345");
+        json = json.substring(0, pos) + "1x345" + json.substring(pos + 5);
+        String expected = null;
+        try {
+            new JSONParser(json).parseArray();
+        } catch (JSONSyntaxException ex) {
+            expected = ex.getMessage();
+        }
+        assertNotNull(expected);
+        try {
+            new JSONParallelParser(executor).parseArray(json);
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertEquals(expected, ex.getMessage());
+        }
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testTrailingComma() throws IOException {
+        String json = createDocument(20000);
+        json = json.substring(0, json.lastIndexOf(']')) + ",]";
+        new JSONParallelParser(executor).parseArray(json);
+    }
+
+    @Test
+    public void testLimitsAreForwarded() throws IOException {
+        String json = createDocument(20000);
+        JSONParallelParser parser = new JSONParallelParser(executor);
+        parser.setLenient(true);
+        parser.setMaxDepth(4);
+        parser.setMaxElements(20000);
+        parser.setMaxDocumentLength(json.length());
+        assertEquals(20000, parser.parseArray(json).size());
+
+        parser.setMaxDepth(3);
+        try {
+            parser.parseArray(json);
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Nesting exceeds the maximum depth of 3"));
+        }
+        parser.setMaxDepth(4);
+        parser.setMaxStringLength(5);
+        try {
+            parser.parseArray(json);
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("String exceeds"));
+        }
+        parser.setMaxStringLength(Integer.MAX_VALUE);
+        parser.setMaxElements(19999);
+        try {
+            parser.parseArray(json);
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Container exceeds"));
+        }
+        parser.setMaxElements(20000);
+        parser.setMaxDocumentLength(json.length() - 2);
+        try {
+            parser.parseArray(json);
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Document exceeds"));
+        }
+    }
+}
@@ -113,4 +113,40 @@ public class JSONParserCallbackTest {
         Assert.assertTrue(endCalled.get());
         Assert.assertEquals(expected, list);
     }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        final List<Object> values = new ArrayList<Object>();
+        JSONParser parser = new JSONParser("{'a': {'x': [1, {'y': 'z'}], 'w': null}, 'b': 2, 'c': [true, \"s\\\"\", -1.5e3], 'd': 'keep'}");
+        parser.parseObject(new JSONParser.AbstractObjectCallback() {
+            public void property(JSONParser parser, String property, ValueType type) throws IOException {
+                if ("d".equals(property)) {
+                    values.add(parser.parseValue());
+                } else {
+                    parser.skipValue();
+                }
+            }
+        });
+        Assert.assertEquals(Arrays.asList("keep"), values);
+    }
+
+    @Test
+    public void testSkipValueLenient() throws IOException {
+        JSONParser parser = new JSONParser("[{a => 1; 'b' = [2]}, 3]");
+        parser.setLenient(true);
+        parser.parseArray(new JSONParser.AbstractArrayCallback() {
+            public void item(JSONParser parser, int idx, ValueType type) throws IOException {
+                if (idx == 0) {
+                    parser.skipValue();
+                } else {
+                    Assert.assertEquals(3, parser.parseInt());
+                }
+            }
+        });
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testSkipValueValidates() throws IOException {
+        new JSONParser("{'a': [1, 2}").skipValue();
+    }
 }
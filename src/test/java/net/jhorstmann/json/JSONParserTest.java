@@ -3,13 +3,23 @@ package net.jhorstmann.json;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.HashMap;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Collections;
 import java.util.TimeZone;
+import java.nio.ByteBuffer;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -267,4 +277,545 @@ public class JSONParserTest {
         assertEquals("xyz", obj.get("def"));
         assertEquals(Boolean.TRUE, obj.get("ghi"));
     }
+
+    @Test
+    public void testReaderAcrossBufferBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i=0; i<5000; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("{'key': 'value").append(i).append("', 'num': ").append(i).append(".5}");
+        }
+        sb.append("]");
+        List list = (List)new JSONParser(new StringReader(sb.toString())).parse();
+        assertEquals(5000, list.size());
+        assertEquals("value4999", ((JSONObject)list.get(4999)).getString("key"));
+        assertEquals(4999.5, ((JSONObject)list.get(4999)).getDouble("num"), 0.0);
+    }
+
+    @Test
+    public void testUTF8Bytes() throws IOException {
+        String json = "{\"k\u00e4y\": [\"\u00f6\u20ac\ud83d\ude00\", 1.5]}";
+        byte[] utf8 = json.getBytes("UTF-8");
+        Object expected = new JSONParser(json).parse();
+        assertEquals(expected, new JSONParser(utf8).parse());
+        assertEquals(expected, new JSONParser(ByteBuffer.wrap(utf8)).parse());
+        assertEquals(expected, new JSONParser(new ByteArrayInputStream(utf8)).parse());
+    }
+
+    @Test
+    public void testUTF8StreamSplitSequences() throws IOException {
+        String json = "[\"\u00e4\u20ac\ud83d\ude00\u00e4\u20ac\ud83d\ude00\"]";
+        final byte[] utf8 = json.getBytes("UTF-8");
+        InputStream in = new InputStream() {
+            int idx;
+
+            @Override
+            public int read() throws IOException {
+                return idx < utf8.length ? utf8[idx++] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int ch = read();
+                if (ch == -1) {
+                    return -1;
+                }
+                b[off] = (byte)ch;
+                return 1;
+            }
+        };
+        assertEquals(new JSONParser(json).parse(), new JSONParser(in).parse());
+    }
+
+    @Test
+    public void testMalformedUTF8IsReplaced() throws IOException {
+        byte[] utf8 = new byte[] {'"', 'a', (byte)0xC3, 'b', '"'};
+        assertEquals("a\ufffdb", new JSONParser(utf8).parse());
+    }
+
+    private static File createTempFile(byte[] content) throws IOException {
+        File file = File.createTempFile("jjson", ".json");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        String json = "{\"k\u00e4y\": [\"\u00f6\u20ac\ud83d\ude00\", 1.5, true, null]}";
+        File file = createTempFile(json.getBytes("UTF-8"));
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            Object expected = new JSONParser(json).parse();
+            assertEquals(expected, new JSONParser(raf.getChannel()).parse());
+            for (int windowSize = 4; windowSize < 12; windowSize++) {
+                raf.getChannel().position(0);
+                assertEquals(expected, new JSONParser(new MappedFileReader(raf.getChannel(), windowSize)).parse());
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testMappedFileWithTruncatedSequence() throws IOException {
+        byte[] bytes = {'"', 'a', (byte)0xC3};
+        File file = createTempFile(bytes);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            for (int windowSize = 4; windowSize < 6; windowSize++) {
+                raf.getChannel().position(0);
+                try {
+                    new JSONParser(new MappedFileReader(raf.getChannel(), windowSize)).parse();
+                    fail("Expected " + JSONSyntaxException.class.getName());
+                } catch (JSONSyntaxException ex) {
+                    // the unterminated string is reported like for the other inputs
+                }
+            }
+            raf.getChannel().position(0);
+            Reader reader = new MappedFileReader(raf.getChannel(), 4);
+            StringBuilder sb = new StringBuilder();
+            int ch;
+            while ((ch = reader.read()) != -1) {
+                sb.append((char)ch);
+            }
+            assertEquals("\"a\uFFFD", sb.toString());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static final String[] NUMBERS = {
+        "0", "-0", "1", "-1", "0.1", "1.5e300", "1e-300", "123456789012345678", "9223372036854775807",
+        "9223372036854775808", "12345678901234567890123", "0.000000000000000000000000012345",
+        "1.00000000000000000000000", "100000000000000000000000", "4.9e-324", "2.2250738585072014E-308",
+        "1.7976931348623157e308", "1e400", "-1e-400", "9007199254740993", "3.14159265358979323846", "1E+2"
+    };
+
+    @Test
+    public void testNumberPrecision() throws IOException {
+        for (String number : NUMBERS) {
+            assertEquals(number, Double.valueOf(number), new JSONParser(number).parse());
+            assertEquals(number, new BigDecimal(number), createBigDecimalParser(number).parse());
+        }
+    }
+
+    @Test(expected=JSONSyntaxException.class)
+    public void testMissingExponentDigits() throws IOException {
+        new JSONParser("1e").parse();
+    }
+
+    @Test
+    public void testPrimitiveNumbers() throws IOException {
+        assertEquals(123, new JSONParser("123").parseInt());
+        assertEquals(-123, new JSONParser(" -123").parseInt());
+        assertEquals(100, new JSONParser("1e2").parseInt());
+        assertEquals(1, new JSONParser("1.0").parseInt());
+        assertEquals(Long.MIN_VALUE, new JSONParser("-9223372036854775808").parseLong());
+        assertEquals(Long.MAX_VALUE, new JSONParser("9223372036854775807").parseLong());
+        assertEquals((short)-32768, new JSONParser("-32768").parseShort());
+        assertEquals((byte)127, new JSONParser("127").parseByte());
+        assertEquals(0.1, new JSONParser("0.1").parseDouble(), 0.0);
+        for (String number : NUMBERS) {
+            assertEquals(number, Double.parseDouble(number), new JSONParser(number).parseDouble(), 0.0);
+            assertEquals(number, Float.parseFloat(number), new JSONParser(number).parseFloat(), 0.0f);
+        }
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testIntOverflow() throws IOException {
+        new JSONParser("2147483648").parseInt();
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testLongOverflow() throws IOException {
+        new JSONParser("9223372036854775808").parseLong();
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testIntFraction() throws IOException {
+        new JSONParser("1.5").parseInt();
+    }
+
+    private static void assertSameDouble(String number) throws IOException {
+        long expected = Double.doubleToLongBits(Double.parseDouble(number));
+        assertEquals(number, expected, Double.doubleToLongBits(new JSONParser(number).parseDouble()));
+        assertEquals(number, expected, Double.doubleToLongBits((Double)new JSONParser(number).parse()));
+    }
+
+    @Test
+    public void testDoubleRoundTrip() throws IOException {
+        Random random = new Random(42L);
+        for (int i=0; i<20000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                assertSameDouble(Double.toString(d).replace("E", "e"));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomDecimals() throws IOException {
+        Random random = new Random(4711L);
+        for (int i=0; i<20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            sb.append(1 + random.nextInt(9));
+            int digits = random.nextInt(25);
+            for (int j=0; j<digits; j++) {
+                sb.append(random.nextInt(10));
+            }
+            if (random.nextBoolean()) {
+                sb.insert(sb.length() - random.nextInt(digits + 1), '.');
+                if (sb.charAt(sb.length() - 1) == '.') {
+                    sb.append('0');
+                }
+            }
+            sb.append('e').append(random.nextInt(700) - 350);
+            assertSameDouble(sb.toString());
+        }
+    }
+
+    @Test
+    public void testHardDoubles() throws IOException {
+        String[] numbers = {
+            "2.2250738585072011e-308", "2.2250738585072012e-308", "2.2250738585072013e-308", "4.9406564584124654e-324",
+            "2.4703282292062327e-324", "2.4703282292062328e-324", "1.7976931348623158e308", "1.7976931348623159e308",
+            "9007199254740993", "9007199254740992.5", "9007199254740993.0000000000000001", "1.00000000000000011102230246251565404236316680908203125",
+            "1.00000000000000011102230246251565404236316680908203124", "7.3177701707893310e15", "8.589973e9", "1e23",
+            "0.1", "0.2", "0.3", "123456789012345678901234567890e-30", "1448997445238699", "9.999999999999999e22"
+        };
+        for (String number : numbers) {
+            assertSameDouble(number);
+        }
+    }
+
+    @Test
+    public void testLongStringAcrossBufferBoundaries() throws IOException {
+        StringBuilder json = new StringBuilder("\"");
+        StringBuilder expected = new StringBuilder();
+        for (int i=0; i<3000; i++) {
+            json.append("abc\\n\\u00e4");
+            expected.append("abc\n\u00e4");
+        }
+        json.append("\"");
+        assertEquals(expected.toString(), new JSONParser(new StringReader(json.toString())).parse());
+        assertEquals(expected.toString(), new JSONParser(json.toString()).parse());
+    }
+
+    @Test(expected=JSONSyntaxException.class)
+    public void testControlCharacterInString() throws IOException {
+        new JSONParser("'abc\ndef'").parse();
+    }
+
+    @Test(expected=JSONSyntaxException.class)
+    public void testUnterminatedString() throws IOException {
+        new JSONParser("'abc").parse();
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        JSONParser parser = new JSONParser("{'a': 1}");
+        parser.setParseBigDecimal(true);
+        SymbolTable symbols = new SymbolTable();
+        parser.setSymbolTable(symbols);
+        assertEquals(Collections.singletonMap("a", BigDecimal.ONE), parser.parse());
+        parser.reset("[2]");
+        assertEquals(Arrays.asList(new BigDecimal(2)), parser.parse());
+        parser.reset(new StringReader("{'a': 3}"));
+        assertEquals(Collections.singletonMap("a", new BigDecimal(3)), parser.parse());
+        parser.reset("{\"a\": 4}".getBytes("UTF-8"));
+        assertEquals(Collections.singletonMap("a", new BigDecimal(4)), parser.parse());
+        parser.reset("x[5]".toCharArray(), 1, 3);
+        assertEquals(Arrays.asList(new BigDecimal(5)), parser.parse());
+        assertSame(symbols, parser.getSymbolTable());
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    public void testUTF8MixedAlignment() throws IOException {
+        for (int i=0; i<20; i++) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (int j=0; j<200; j++) {
+                sb.append(j % (i + 3) == 0 ? "\u00e4\u20ac" : "a");
+            }
+            sb.append("\"");
+            String json = sb.toString();
+            assertEquals(new JSONParser(json).parse(), new JSONParser(json.getBytes("UTF-8")).parse());
+        }
+    }
+
+    @Test
+    public void testErrorPosition() throws IOException {
+        String json = "[1,\n 2,\n  x]";
+        try {
+            new JSONParser(json).parse();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().endsWith("at line 3 column 2"));
+        }
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("1,\n");
+        }
+        sb.append("  x]");
+        JSONParser parser = new JSONParser(new StringReader(sb.toString()));
+        try {
+            parser.parse();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().endsWith("at line 5001 column 2"));
+            assertEquals(sb.length() - 2, parser.getOffset());
+        }
+    }
+
+    @Test
+    public void testErrorPositionWithoutLineTracking() throws IOException {
+        JSONParser parser = new JSONParser("[1,\n 2,\n  x]");
+        parser.setLineTracking(false);
+        try {
+            parser.parse();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().endsWith("at offset 10"));
+            assertEquals(-1, parser.getLine());
+            assertEquals(-1, parser.getColumn());
+        }
+    }
+
+    @Test
+    public void testStringSlices() throws IOException {
+        final List<CharSequence> list = new ArrayList<CharSequence>();
+        new JSONParser("[\"abc\", \"a\\nb\", \"\"]").parseArray(new JSONParser.AbstractArrayCallback() {
+            public void item(JSONParser parser, int idx, JSONParser.ValueType type) throws IOException {
+                list.add(parser.parseCharSequence());
+            }
+        });
+        assertTrue(list.get(0) instanceof CharSlice);
+        assertTrue(((CharSlice)list.get(0)).contentEquals("abc"));
+        assertTrue("abc".contentEquals(list.get(0)));
+        assertEquals("abc".hashCode(), list.get(0).hashCode());
+        assertEquals("bc", list.get(0).toString().substring(1));
+        assertEquals("b", list.get(0).subSequence(1, 2).toString());
+        assertEquals("a\nb", list.get(1));
+        assertEquals(0, list.get(2).length());
+        assertEquals("[\"abc\",\"a\\nb\",\"\"]", JSONUtils.format(list));
+    }
+
+    @Test
+    public void testStringSlicesNotUsedInTrees() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"v").append(i).append('"');
+        }
+        sb.append(']');
+        String json = sb.toString();
+        JSONParser parser = new JSONParser(new StringReader(json));
+        parser.setStringSlices(true);
+        JSONArray array = parser.parseArray();
+        assertEquals(new JSONParser(json).parse(), array);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals("v" + i, array.get(i));
+        }
+
+        parser = new JSONParser("{\"a\": [\"x\"]}");
+        parser.setStringSlices(true);
+        JSONObject obj = parser.parseObject();
+        assertEquals("x", ((JSONArray)obj.get("a")).get(0));
+    }
+
+    @Test
+    public void testCharSequenceAcrossBufferBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"s").append(i).append('"');
+        }
+        sb.append(']');
+        final List<String> values = new ArrayList<String>();
+        new JSONParser(new StringReader(sb.toString())).parseArray(new JSONParser.AbstractArrayCallback() {
+            public void item(JSONParser parser, int idx, JSONParser.ValueType type) throws IOException {
+                CharSequence cs = parser.parseCharSequence();
+                assertTrue(cs.toString(), ("s" + idx).contentEquals(cs));
+                values.add(cs.toString());
+            }
+        });
+        assertEquals(3000, values.size());
+    }
+
+    @Test
+    public void testConcatenatedDocuments() throws IOException {
+        JSONParser parser = new JSONParser(new ByteArrayInputStream("{\"a\": 1}{\"b\": [2]} \"s\"\n3 true[]".getBytes("UTF-8")));
+        List<Object> values = new ArrayList<Object>();
+        while (parser.hasNext()) {
+            values.add(parser.parseNext());
+        }
+        assertEquals(6, values.size());
+        assertEquals(new JSONParser("{\"a\": 1}").parse(), values.get(0));
+        assertEquals(new JSONParser("{\"b\": [2]}").parse(), values.get(1));
+        assertEquals("s", values.get(2));
+        assertEquals(3.0, values.get(3));
+        assertEquals(Boolean.TRUE, values.get(4));
+        assertEquals(new JSONArray(), values.get(5));
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testConcatenatedDocumentsIncomplete() throws IOException {
+        JSONParser parser = new JSONParser("[1] [2");
+        parser.parseNext();
+        parser.parseNext();
+    }
+
+    private static String nested(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append(i % 2 == 0 ? "[" : "{\"a\":");
+        }
+        sb.append('0');
+        for (int i = depth - 1; i >= 0; i--) {
+            sb.append(i % 2 == 0 ? "]" : "}");
+        }
+        return sb.toString();
+    }
+
+    private static void assertLimitExceeded(JSONParser parser, String message) throws IOException {
+        try {
+            parser.parse();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith(message));
+        }
+    }
+
+    @Test
+    public void testMaxDepth() throws IOException {
+        new JSONParser(nested(1000)).parse();
+        assertLimitExceeded(new JSONParser(nested(100000)), "Nesting exceeds the maximum depth of 1000");
+
+        JSONParser parser = new JSONParser(nested(4));
+        parser.setMaxDepth(3);
+        assertLimitExceeded(parser, "Nesting exceeds the maximum depth of 3");
+        parser.reset(nested(3));
+        parser.parse();
+
+        parser.reset("[[1], [[2]], [3]]");
+        parser.parse();
+        parser.reset("{\"a\": [[[1]]]}");
+        try {
+            parser.skipValue();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+        }
+    }
+
+    @Test
+    public void testMaxDocumentLength() throws IOException {
+        JSONParser parser = new JSONParser("[1, 2, 3]");
+        parser.setMaxDocumentLength(9);
+        parser.parse();
+        parser.reset("[1, 2, 3] ");
+        assertLimitExceeded(parser, "Document exceeds the maximum length of 9 characters");
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i == 0 ? "" : ",").append(i);
+        }
+        sb.append(']');
+        parser = new JSONParser(new StringReader(sb.toString()));
+        parser.setMaxDocumentLength(sb.length());
+        parser.parse();
+        parser = new JSONParser(new StringReader(sb.toString()));
+        parser.setMaxDocumentLength(sb.length() - 1);
+        assertLimitExceeded(parser, "Document exceeds");
+        parser = new JSONParser(new StringReader(sb.toString()));
+        parser.setMaxDocumentLength(8192);
+        assertLimitExceeded(parser, "Document exceeds");
+    }
+
+    @Test
+    public void testMaxStringLength() throws IOException {
+        JSONParser parser = new JSONParser("[\"abcd\", \"ab\\u0063d\"]");
+        parser.setMaxStringLength(4);
+        parser.parse();
+        parser.reset("[\"abcde\"]");
+        assertLimitExceeded(parser, "String exceeds the maximum length of 4 characters");
+        parser.reset("[\"abc\\n\\n\"]");
+        assertLimitExceeded(parser, "String exceeds");
+        parser.reset("{\"abcde\": 1}");
+        assertLimitExceeded(parser, "String exceeds");
+        parser.setStringSlices(true);
+        parser.reset("[\"abcde\"]");
+        assertLimitExceeded(parser, "String exceeds");
+        parser.reset("[\"abcde\"]");
+        try {
+            parser.skipValue();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+        }
+
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < 20000; i++) {
+            sb.append('x');
+        }
+        sb.append('"');
+        parser = new JSONParser(new StringReader(sb.toString()));
+        parser.setMaxStringLength(10000);
+        assertLimitExceeded(parser, "String exceeds");
+    }
+
+    @Test
+    public void testMaxNumberLength() throws IOException {
+        JSONParser parser = new JSONParser("[-1.5e10, 12345678]");
+        parser.setMaxNumberLength(8);
+        parser.parse();
+        parser.reset("[123456789]");
+        assertLimitExceeded(parser, "Number exceeds the maximum length of 8 characters");
+        parser.reset("[1.0000000]");
+        assertLimitExceeded(parser, "Number exceeds");
+    }
+
+    @Test
+    public void testMaxElements() throws IOException {
+        JSONParser parser = new JSONParser("[[1, 2, 3], {\"a\": 1, \"b\": 2, \"c\": 3}, 3]");
+        parser.setMaxElements(3);
+        parser.parse();
+        parser.reset("[1, 2, 3, 4]");
+        assertLimitExceeded(parser, "Container exceeds the maximum of 3 elements");
+        parser.reset("{\"a\": 1, \"b\": 2, \"c\": 3, \"d\": 4}");
+        assertLimitExceeded(parser, "Container exceeds");
+        parser.reset("[[1, 2, 3, 4]]");
+        try {
+            parser.skipValue();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+        }
+    }
+
+    @Test
+    public void testObjectsOfDifferentSizes() throws IOException {
+        String json = "[{\"a\":1},{\"a\":1,\"b\":2},{\"a\":1,\"b\":2,\"c\":3},{\"a\":1},{\"b\":1,\"a\":2,\"c\":3,\"d\":4},{}]";
+        JSONArray array = new JSONParser(json).parseArray();
+        assertEquals(6, array.size());
+        assertEquals(1, ((JSONObject)array.get(0)).size());
+        JSONObject obj = (JSONObject)array.get(2);
+        assertEquals(3, obj.size());
+        assertEquals(3.0, obj.get("c"));
+        obj = (JSONObject)array.get(4);
+        assertEquals(Arrays.asList("b", "a", "c", "d"), new ArrayList<String>(obj.keySet()));
+        assertEquals(4.0, obj.get("d"));
+        assertTrue(((JSONObject)array.get(5)).isEmpty());
+
+        // growing from a single property after an empty object
+        array = new JSONParser("[{}, {\"x\": 1, \"y\": 2, \"z\": 3}]").parseArray();
+        assertEquals(3, ((JSONObject)array.get(1)).size());
+    }
 }
@@ -0,0 +1,164 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.jhorstmann.json.JSONEventParser.EventType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONPushParserTest {
+
+    private static List<Object> parseBytewise(String json) throws IOException {
+        byte[] utf8 = json.getBytes("UTF-8");
+        JSONPushParser parser = new JSONPushParser();
+        List<Object> result = new ArrayList<Object>();
+        for (int i=0; i<utf8.length; i++) {
+            parser.feed(utf8, i, 1);
+            Object value;
+            while ((value = parser.parseNext()) != null) {
+                result.add(value);
+            }
+        }
+        parser.endOfInput();
+        Object value;
+        while ((value = parser.parseNext()) != null) {
+            result.add(value);
+        }
+        assertTrue(parser.isFinished());
+        return result;
+    }
+
+    @Test
+    public void testSingleDocument() throws IOException {
+        String json = "{\"a\": [1, 2, {\"b\": \"x}]\\\"\"}], \"c\": \"ä€\"}";
+        assertEquals(Arrays.asList(new JSONParser(json).parse()), parseBytewise(json));
+    }
+
+    @Test
+    public void testConsecutiveDocuments() throws IOException {
+        List<Object> result = parseBytewise(" {\"a\":1}{\"b\":2}\n[3] 'x' \"y\" 4 true null");
+        assertEquals(8, result.size());
+        assertEquals(new JSONParser("{\"a\":1}").parse(), result.get(0));
+        assertEquals(new JSONParser("{\"b\":2}").parse(), result.get(1));
+        assertEquals(Arrays.asList(3.0), result.get(2));
+        assertEquals("x", result.get(3));
+        assertEquals("y", result.get(4));
+        assertEquals(4.0, result.get(5));
+        assertEquals(Boolean.TRUE, result.get(6));
+        assertEquals(JSONNull.INSTANCE, result.get(7));
+    }
+
+    @Test
+    public void testNeedsMoreInput() throws IOException {
+        JSONPushParser parser = new JSONPushParser();
+        parser.feed("{\"a\": [1, ".getBytes("UTF-8"));
+        assertNull(parser.parseNext());
+        parser.feed(ByteBuffer.wrap("2]}".getBytes("UTF-8")));
+        assertEquals(new JSONParser("{\"a\": [1, 2]}").parse(), parser.parseNext());
+        assertNull(parser.parseNext());
+        parser.feed("123".getBytes("UTF-8"));
+        assertNull(parser.parseNext());
+        assertFalse(parser.isFinished());
+        parser.endOfInput();
+        assertEquals(123.0, parser.parseNext());
+        assertTrue(parser.isFinished());
+    }
+
+    @Test
+    public void testLargeDocument() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i=0; i<10000; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"id\":").append(i).append('}');
+        }
+        sb.append("]");
+        List<Object> result = parseBytewise(sb.toString() + sb.toString());
+        assertEquals(2, result.size());
+        assertEquals(10000, ((List)result.get(1)).size());
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        JSONPushParser parser = new JSONPushParser();
+        parser.feed("[\"a\", 1] {".getBytes("UTF-8"));
+        JSONEventParser events = parser.nextEvents();
+        assertEquals(EventType.START_ARRAY, events.nextEvent());
+        assertEquals(EventType.VALUE_STRING, events.nextEvent());
+        assertEquals("a", events.getString());
+        assertEquals(EventType.VALUE_NUMBER, events.nextEvent());
+        assertEquals(EventType.END_ARRAY, events.nextEvent());
+        assertFalse(events.hasNextEvent());
+        assertNull(parser.nextEvents());
+    }
+
+    @Test(expected=JSONSyntaxException.class)
+    public void testIncompleteDocumentAtEndOfInput() throws IOException {
+        JSONPushParser parser = new JSONPushParser();
+        parser.feed("{\"a\": ".getBytes("UTF-8"));
+        assertNull(parser.parseNext());
+        parser.endOfInput();
+        parser.parseNext();
+    }
+
+    @Test
+    public void testLongStrings() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i=0; i<100; i++) {
+            sb.append(i > 0 ? "," : "").append('"');
+            for (int j=0; j<i; j++) {
+                sb.append(j % 17 == 0 ? "\\\"" : j % 13 == 0 ? "\u00e4" : "x");
+            }
+            sb.append('"');
+        }
+        sb.append("]");
+        String json = sb.toString();
+        JSONPushParser parser = new JSONPushParser();
+        parser.feed(json.getBytes("UTF-8"));
+        assertEquals(new JSONParser(json).parse(), parser.parseNext());
+        assertEquals(Arrays.asList(new JSONParser(json).parse()), parseBytewise(json));
+    }
+
+    @Test
+    public void testMaxDocumentLength() throws IOException {
+        JSONPushParser parser = new JSONPushParser();
+        parser.setMaxDocumentLength(16);
+        parser.feed("[1, 2] [3, 4]".getBytes("UTF-8"));
+        assertEquals(Arrays.asList(1.0, 2.0), parser.parseNext());
+        assertEquals(Arrays.asList(3.0, 4.0), parser.parseNext());
+        parser.feed("\"endless string ".getBytes("UTF-8"));
+        assertNull(parser.parseNext());
+        try {
+            parser.feed("that is never terminated".getBytes("UTF-8"));
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Buffered input exceeds"));
+        }
+    }
+
+    @Test
+    public void testLimitsAreForwarded() throws IOException {
+        JSONPushParser parser = new JSONPushParser();
+        parser.setMaxDepth(2);
+        parser.setMaxElements(2);
+        parser.feed("[[1]] [[[1]]] [1, 2, 3]".getBytes("UTF-8"));
+        parser.endOfInput();
+        assertEquals(1, ((List)parser.parseNext()).size());
+        try {
+            parser.parseNext();
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Nesting exceeds"));
+        }
+        JSONEventParser events = parser.nextEvents();
+        try {
+            while (events.hasNextEvent()) {
+                events.nextEvent();
+            }
+            fail("Expected " + JSONSyntaxException.class.getName());
+        } catch (JSONSyntaxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Container exceeds"));
+        }
+    }
+}
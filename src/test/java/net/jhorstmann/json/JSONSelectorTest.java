@@ -0,0 +1,57 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONSelectorTest {
+    private static final String DOCUMENT = "{\"user\": {\"id\": 42, \"name\": \"x\"}, \"skip\": [1, {\"a\": [true]}],"
+            + " \"items\": [{\"price\": 1.5, \"n\": 1}, {\"price\": 2}, {\"other\": 3}], \"a/b\": \"slash\"}";
+
+    @Test
+    public void testJSONPointer() throws IOException {
+        Map<String, List<Object>> result = JSONSelector.compile("/user/id", "/items/*/price", "/items/1", "/a~1b", "/missing")
+                .select(new JSONParser(DOCUMENT));
+        assertEquals(Arrays.asList(42.0), result.get("/user/id"));
+        assertEquals(Arrays.asList(1.5, 2.0), result.get("/items/*/price"));
+        assertEquals(1, result.get("/items/1").size());
+        assertEquals(Arrays.asList("slash"), result.get("/a~1b"));
+        assertNull(result.get("/missing"));
+    }
+
+    @Test
+    public void testDottedPaths() throws IOException {
+        Map<String, List<Object>> result = JSONSelector.compile("user.name", "$.items[0].n", "items[*].other")
+                .select(new JSONParser(DOCUMENT));
+        assertEquals(Arrays.asList("x"), result.get("user.name"));
+        assertEquals(Arrays.asList(1.0), result.get("$.items[0].n"));
+        assertEquals(Arrays.asList(3.0), result.get("items[*].other"));
+    }
+
+    @Test
+    public void testOverlappingPathsInDocumentOrder() throws IOException {
+        final List<String> matches = new ArrayList<String>();
+        JSONSelector.compile("/user", "/user/id", "/*/id", "/items/0/*").select(new JSONParser(DOCUMENT), new JSONSelector.Callback() {
+            public void match(String path, Object value) {
+                matches.add(path + "=" + value);
+            }
+        });
+        assertEquals(Arrays.asList("/user={\"id\":42.0,\"name\":\"x\"}", "/user/id=42.0", "/*/id=42.0",
+                "/items/0/*=1.5", "/items/0/*=1.0"), matches);
+    }
+
+    @Test
+    public void testRoot() throws IOException {
+        Map<String, List<Object>> result = JSONSelector.compile("").select(new JSONParser("[1]"));
+        assertEquals(Arrays.asList(Arrays.asList(1.0)), result.get(""));
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testSkippedValuesAreValidated() throws IOException {
+        JSONSelector.compile("/a").select(new JSONParser("{\"b\": [1, }, \"a\": 1}"));
+    }
+}
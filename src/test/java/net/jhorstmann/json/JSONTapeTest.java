@@ -0,0 +1,156 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReference;
+import net.jhorstmann.json.JSONParser.ValueType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JSONTapeTest {
+
+    @Test
+    public void testNavigation() throws IOException {
+        JSONTape tape = JSONTape.parse("{\"a\": [1, 2.5, \"x\"], \"b\": {\"c\": true}, \"d\": null, \"e\": false}");
+        int root = tape.getRoot();
+        assertEquals(ValueType.OBJECT, tape.getType(root));
+        assertEquals(4, tape.size(root));
+
+        int a = tape.get(root, "a");
+        assertEquals(ValueType.ARRAY, tape.getType(a));
+        assertEquals(3, tape.size(a));
+        assertEquals(1L, tape.getLong(tape.get(a, 0)));
+        assertEquals(2.5, tape.getDouble(tape.get(a, 1)), 0.0);
+        assertEquals("x", tape.getString(tape.get(a, 2)));
+
+        int b = tape.get(root, "b");
+        assertTrue(tape.getBoolean(tape.get(b, "c")));
+        assertTrue(tape.isNull(tape.get(root, "d")));
+        assertFalse(tape.getBoolean(tape.get(root, "e")));
+        assertEquals(-1, tape.get(root, "f"));
+        assertEquals(-1, tape.get(root, "ab"));
+        assertEquals(-1, tape.get(b, ""));
+    }
+
+    @Test
+    public void testSiblingIteration() throws IOException {
+        JSONTape tape = JSONTape.parse("[[1, [2]], {\"k\": [3]}, 4, []]");
+        int root = tape.getRoot();
+        ValueType[] types = {ValueType.ARRAY, ValueType.OBJECT, ValueType.NUMBER, ValueType.ARRAY};
+        int node = tape.firstChild(root);
+        for (int i = 0; i < tape.size(root); i++) {
+            assertEquals(types[i], tape.getType(node));
+            node = tape.next(node);
+        }
+        assertEquals(4, tape.getInt(tape.get(root, 2)));
+        assertEquals(-1, tape.firstChild(tape.get(root, 3)));
+    }
+
+    @Test
+    public void testEscapedKeysAndStrings() throws IOException {
+        JSONTape tape = JSONTape.parse("{\"a\\u0062\": \"line\\nbreak\", \"q\\\"\": 1, 'single': 2}");
+        int root = tape.getRoot();
+        assertEquals("line\nbreak", tape.getString(tape.get(root, "ab")));
+        assertEquals(1, tape.getInt(tape.get(root, "q\"")));
+        assertEquals(-1, tape.get(root, "q"));
+        assertEquals(2, tape.getInt(tape.get(root, "single")));
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+        JSONTape tape = JSONTape.parse("[12345678901234567890.5, -7, 1e3]");
+        int root = tape.getRoot();
+        assertEquals(new BigDecimal("12345678901234567890.5"), tape.getBigDecimal(tape.get(root, 0)));
+        assertEquals(-7L, tape.getLong(tape.get(root, 1)));
+        assertEquals(1000.0, tape.getDouble(tape.get(root, 2)), 0.0);
+    }
+
+    @Test
+    public void testGetValue() throws IOException {
+        String json = "{\"a\": [1, \"x\", null, true], \"b\": {\"c\": {}}}";
+        JSONTape tape = JSONTape.parse(json);
+        assertEquals(new JSONParser(json).parse(), tape.getValue(tape.getRoot()));
+    }
+
+    @Test
+    public void testReaderAndBytes() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"ä").append(i).append('"');
+        }
+        sb.append(']');
+        String json = sb.toString();
+        JSONTape tape = JSONTape.parse(new StringReader(json));
+        assertEquals(5000, tape.size(tape.getRoot()));
+        assertEquals("ä4999", tape.getString(tape.get(tape.getRoot(), 4999)));
+
+        tape = JSONTape.parse(json.getBytes("UTF-8"));
+        assertEquals("ä123", tape.getString(tape.get(tape.getRoot(), 123)));
+    }
+
+    @Test
+    public void testScalarRoot() throws IOException {
+        JSONTape tape = JSONTape.parse(" \"abc\" ");
+        assertEquals("abc", tape.getString(tape.getRoot()));
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testTrailingGarbage() throws IOException {
+        JSONTape.parse("[1] 2");
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testUnterminatedArray() throws IOException {
+        JSONTape.parse("[1, [2]");
+    }
+
+    @Test(expected = JSONSyntaxException.class)
+    public void testInvalidEscape() throws IOException {
+        JSONTape.parse("[\"a\\x\"]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongType() throws IOException {
+        JSONTape tape = JSONTape.parse("[1]");
+        tape.getString(tape.get(tape.getRoot(), 0));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i == 0 ? "" : ",").append("[\"s").append(i).append("\", ").append(i).append(".5]");
+        }
+        sb.append(']');
+        final JSONTape tape = JSONTape.parse(sb.toString());
+        final int root = tape.getRoot();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 20; n++) {
+                            int node = tape.firstChild(root);
+                            for (int i = 0; i < 1000; i++) {
+                                int child = tape.firstChild(node);
+                                assertEquals("s" + i, tape.getString(child));
+                                assertEquals(i + 0.5, tape.getDouble(tape.next(child)), 0.0);
+                                node = tape.next(node);
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+}
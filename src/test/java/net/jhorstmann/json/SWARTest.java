@@ -0,0 +1,31 @@
+package net.jhorstmann.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SWARTest {
+
+    private static long word(String s) throws Exception {
+        return ByteBuffer.wrap(s.getBytes("ISO-8859-1")).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+    }
+
+    @Test
+    public void testFirstMatch() throws Exception {
+        long quotes = SWAR.broadcast('"');
+        assertEquals(0, SWAR.match(word("abcdefgh"), quotes));
+        for (int i=0; i<8; i++) {
+            StringBuilder sb = new StringBuilder("abcdefgh");
+            sb.setCharAt(i, '"');
+            assertEquals(i, SWAR.firstIndex(SWAR.match(word(sb.toString()), quotes)));
+        }
+        assertEquals(2, SWAR.firstIndex(SWAR.match(word("\u0001\u0001\"\"\u0000\"ab"), quotes)));
+    }
+
+    @Test
+    public void testNonAscii() throws Exception {
+        assertFalse(SWAR.hasNonAscii(word("abcdefgh")));
+        assertTrue(SWAR.hasNonAscii(word("abcdefgä")));
+    }
+}
@@ -0,0 +1,56 @@
+package net.jhorstmann.json;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testLookupReturnsCanonicalInstance() {
+        SymbolTable symbols = new SymbolTable();
+        char[] chars = "xabcx".toCharArray();
+        String abc = symbols.lookup(chars, 1, 3);
+        assertEquals("abc", abc);
+        assertSame(abc, symbols.lookup(chars, 1, 3));
+        assertSame(abc, symbols.lookup(new String("abc")));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    public void testTableGrows() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i=0; i<1000; i++) {
+            symbols.lookup("key" + i);
+        }
+        assertEquals(1000, symbols.size());
+        for (int i=0; i<1000; i++) {
+            String key = "key" + i;
+            assertEquals(key, symbols.lookup(key.toCharArray(), 0, key.length()));
+        }
+        assertEquals(1000, symbols.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        SymbolTable symbols = new SymbolTable(2);
+        symbols.lookup("a");
+        symbols.lookup("b");
+        String c = symbols.lookup("c");
+        assertEquals("c", c);
+        assertEquals(2, symbols.size());
+    }
+
+    @Test
+    public void testParserSharesKeys() throws IOException {
+        JSONParser parser = new JSONParser("[{\"id\": 1, \"n\\u0061me\": \"a\"}, {\"id\": 2, \"name\": \"b\"}]");
+        parser.setSymbolTable(new SymbolTable());
+        List list = parser.parseArray();
+        Iterator<String> first = ((JSONObject)list.get(0)).keySet().iterator();
+        Iterator<String> second = ((JSONObject)list.get(1)).keySet().iterator();
+        assertSame(first.next(), second.next());
+        assertSame(first.next(), second.next());
+    }
+}
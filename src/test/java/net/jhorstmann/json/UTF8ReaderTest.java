@@ -0,0 +1,78 @@
+package net.jhorstmann.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class UTF8ReaderTest {
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte)values[i];
+        }
+        return result;
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[7];
+        int len;
+        while ((len = reader.read(buf, 0, buf.length)) >= 0) {
+            sb.append(buf, 0, len);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameAsInputStreamReader(byte[] bytes) throws IOException {
+        String expected = readAll(new InputStreamReader(new ByteArrayInputStream(bytes), "UTF-8"));
+        assertEquals(expected, readAll(new UTF8Reader(bytes, 0, bytes.length)));
+        // a stream returning single bytes splits every sequence across refills
+        InputStream trickle = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        assertEquals(expected, readAll(new UTF8Reader(trickle)));
+    }
+
+    @Test
+    public void testTruncatedSequenceBeforeAscii() throws IOException {
+        byte[] json = bytes('[', '"', 0xF0, '"', ']');
+        assertSameAsInputStreamReader(json);
+        assertEquals("\uFFFD", ((JSONArray)new JSONParser(json).parse()).get(0));
+    }
+
+    @Test
+    public void testMalformedSequences() throws IOException {
+        int[][] inputs = {
+            {0xF0}, {0xF0, 0x9F}, {0xF0, 0x9F, 0x98}, {'a', 0xE2, 0x82}, {0xE2, 'a', 'b'},
+            {0xE0, 0x80, 0x80}, {0xE0, 0xA0}, {0xED, 0xA0, 0x80}, {0xED, 0xA0}, {0xC0, 0xAF}, {0xC2},
+            {0xF4, 0x90, 0x80, 0x80}, {0xF5, 0x80}, {0xF0, 0x80, 0x80, 0x80}, {0xF0, 0x9F, 'x', 'y'},
+            {0x80, 0xBF, 'z'}, {0xFF, 0xFE}, {0xF0, 0x9F, 0x98, 0x80, 0xF0, 0x9F}
+        };
+        for (int[] input : inputs) {
+            assertSameAsInputStreamReader(bytes(input));
+        }
+    }
+
+    @Test
+    public void testRandomInput() throws IOException {
+        Random random = new Random(42);
+        int[] pool = {'a', '"', 0x80, 0x9F, 0xA0, 0xBF, 0xC2, 0xDF, 0xE0, 0xED, 0xEF, 0xF0, 0xF4, 0xF5, 0xFF};
+        for (int n = 0; n < 2000; n++) {
+            byte[] bytes = new byte[random.nextInt(12)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte)pool[random.nextInt(pool.length)];
+            }
+            assertSameAsInputStreamReader(bytes);
+        }
+    }
+}